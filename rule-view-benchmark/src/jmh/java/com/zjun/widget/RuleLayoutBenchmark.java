@@ -0,0 +1,76 @@
+package com.zjun.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 每帧的刻度计算：{@link TimeRuleView}在常见屏幕宽度与不同缩放等级下，一帧可见刻度的位置与类型
+ */
+@State(Scope.Thread)
+public class RuleLayoutBenchmark {
+
+    /**
+     * 12dp/min，按3倍密度
+     */
+    private static final float ONE_SECOND_GAP = 36f / 60;
+
+    @Param({"720", "1080", "1440"})
+    public int width;
+
+    /**
+     * 缩放比例：从放大到最大到缩小到最小
+     */
+    @Param({"6", "1", "0.2", "0.015"})
+    public float scale;
+
+    private RuleLayout mLayout;
+    private double mLeftDistance;
+    private double mMaxDistance;
+    private float mFrameDistance;
+
+    @Setup
+    public void setUp() {
+        final TimeZoomLevels levels = new TimeZoomLevels(TimeZoomLevels.DEFAULT_UNIT_SECONDS,
+                TimeZoomLevels.DEFAULT_LABEL_SECONDS, 9f, 126f, 0.015f * ONE_SECOND_GAP, 6f * ONE_SECOND_GAP);
+        final int zoomLevel = levels.indexOf(scale * ONE_SECOND_GAP);
+        final int unitSecond = levels.unitSecondsAt(zoomLevel);
+        final float unitGap = scale * ONE_SECOND_GAP * unitSecond;
+        // 时区 +8h
+        final int alignment = 8 * 3600;
+        final int maxTime = 24 * 3600;
+        mLayout = new RuleLayout();
+        mLayout.setRange(0, maxTime);
+        mLayout.setGrid(0, -alignment, unitSecond, unitGap);
+        mLayout.setClassification(alignment, 60, 3600, levels.labelSecondsAt(zoomLevel));
+        mLayout.setExpendUnits(3);
+        mMaxDistance = (double) maxTime * unitGap / unitSecond;
+        // 每帧滑动的距离
+        mFrameDistance = 37.5f;
+    }
+
+    @Benchmark
+    public void layoutFrame(Blackhole bh) {
+        double left = mLeftDistance + mFrameDistance;
+        if (left > mMaxDistance) {
+            left = 0;
+        }
+        mLeftDistance = left;
+        final RuleLayout layout = mLayout;
+        final int count = layout.layout(left, width);
+        // 模拟绘制：读取所有刻度
+        float sum = 0;
+        int labels = 0;
+        for (int i = 0; i < count; i++) {
+            sum += layout.positionAt(i) + layout.typeAt(i);
+            if (layout.hasLabelAt(i)) {
+                labels++;
+            }
+        }
+        bh.consume(sum);
+        bh.consume(labels);
+    }
+}
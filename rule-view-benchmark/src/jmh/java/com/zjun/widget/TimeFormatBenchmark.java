@@ -0,0 +1,40 @@
+package com.zjun.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 时间格式化：{@link TimeRuleView#formatTimeHHmm(int)}、{@link TimeRuleView#formatTimeHHmmss(int)}
+ * 均委托给{@link TimeLabels}
+ */
+@State(Scope.Thread)
+public class TimeFormatBenchmark {
+
+    private int mTimeValue;
+
+    private int nextTime() {
+        // 每次前进一个不整除60的步长，覆盖各种时、分、秒
+        mTimeValue += 97;
+        if (mTimeValue >= 24 * 3600) {
+            mTimeValue -= 24 * 3600;
+        }
+        return mTimeValue;
+    }
+
+    @Benchmark
+    public String formatHHmm() {
+        return TimeLabels.formatHHmm(nextTime());
+    }
+
+    @Benchmark
+    public String formatHHmmss() {
+        return TimeLabels.formatHHmmss(nextTime());
+    }
+
+    @Benchmark
+    public int labelIndex() {
+        // 绘制时使用的共享数值表，不创建字符串
+        return TimeLabels.indexOf(nextTime());
+    }
+}
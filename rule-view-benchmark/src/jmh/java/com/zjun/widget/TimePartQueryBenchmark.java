@@ -0,0 +1,91 @@
+package com.zjun.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * 时间块的可见范围查询：二分查找第一个可见的时间块，遍历到可见范围右侧
+ */
+@State(Scope.Thread)
+public class TimePartQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int segments;
+
+    /**
+     * 可见范围的时长，单位：s。对应约1h、6h
+     */
+    @Param({"3600", "21600"})
+    public int viewportTime;
+
+    private TimePartStore mStore;
+    private int mMaxTime;
+    private int mLeftTime;
+    private int mStep;
+
+    @Setup
+    public void setUp() {
+        // 每个时间块10s~2min，间隔0~5min，随机分布
+        final Random random = new Random(615);
+        final int[] startTimes = new int[segments];
+        final int[] endTimes = new int[segments];
+        int time = 0;
+        for (int i = 0; i < segments; i++) {
+            time += random.nextInt(5 * 60);
+            startTimes[i] = time;
+            time += 10 + random.nextInt(110);
+            endTimes[i] = time;
+        }
+        mStore = new TimePartStore(segments);
+        mStore.set(startTimes, endTimes, segments);
+        mMaxTime = time;
+        mStep = Math.max(1, viewportTime / 20);
+    }
+
+    @Benchmark
+    public void queryViewport(Blackhole bh) {
+        int left = mLeftTime + mStep;
+        if (left + viewportTime > mMaxTime) {
+            left = 0;
+        }
+        mLeftTime = left;
+        final int right = left + viewportTime;
+        final TimePartStore store = mStore;
+        final int size = store.size();
+        int visible = 0;
+        for (int i = store.indexOfFirstEndAtOrAfter(left); i < size; i++) {
+            if (store.getStartTime(i) > right) {
+                break;
+            }
+            visible++;
+        }
+        bh.consume(visible);
+    }
+
+    @Benchmark
+    public void queryViewportCoalesced(Blackhole bh) {
+        int left = mLeftTime + mStep;
+        if (left + viewportTime > mMaxTime) {
+            left = 0;
+        }
+        mLeftTime = left;
+        final int right = left + viewportTime;
+        // 缩小后的合并结果，只在第一次调用时计算，之后使用缓存
+        final TimePartStore store = mStore.coalesce(13, 60);
+        final int size = store.size();
+        int visible = 0;
+        for (int i = store.indexOfFirstEndAtOrAfter(left); i < size; i++) {
+            if (store.getStartTime(i) > right) {
+                break;
+            }
+            visible++;
+        }
+        bh.consume(visible);
+    }
+}
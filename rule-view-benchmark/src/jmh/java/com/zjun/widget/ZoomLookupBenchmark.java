@@ -0,0 +1,45 @@
+package com.zjun.widget;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * 缩放值到缩放等级的查找：{@link TimeZoomLevels#indexOf(float)}，缩放手势中每次回调都会调用
+ */
+@State(Scope.Thread)
+public class ZoomLookupBenchmark {
+
+    private static final int SCALE_COUNT = 1024;
+    /**
+     * xxhdpi：1min对应12dp = 36px
+     */
+    private static final float ONE_SECOND_GAP = 36f / 60;
+
+    private final float[] mPixelsPerSecond = new float[SCALE_COUNT];
+    private TimeZoomLevels mLevels;
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mLevels = new TimeZoomLevels(TimeZoomLevels.DEFAULT_UNIT_SECONDS, TimeZoomLevels.DEFAULT_LABEL_SECONDS,
+                9f, 126f, 0.015f * ONE_SECOND_GAP, 6f * ONE_SECOND_GAP);
+        // 在最小与最大缩放值之间按对数均匀分布
+        final double min = Math.log(mLevels.getMinPixelsPerSecond());
+        final double max = Math.log(mLevels.getMaxPixelsPerSecond());
+        final Random random = new Random(615);
+        for (int i = 0; i < SCALE_COUNT; i++) {
+            mPixelsPerSecond[i] = (float) Math.exp(min + (max - min) * random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public int indexOf() {
+        final float pps = mPixelsPerSecond[mIndex];
+        mIndex = (mIndex + 1) & (SCALE_COUNT - 1);
+        return mLevels.indexOf(pps);
+    }
+}
@@ -0,0 +1,87 @@
+package com.zjun.widget;
+
+/**
+ * FixedPoint
+ *
+ * 定点数：数值放大 10^scale 倍后用long保存
+ *
+ * 思路：
+ *  - 原来固定放大10倍存入int，只支持1位小数，0.05、0.01这样的单位会被截断，最大值较大时会溢出
+ *  - 放大倍数可配置，使用long保存，吸附、限定范围、刻度遍历都是整数运算，没有float的舍入误差
+ *  - float转定点数时四舍五入，避免 0.29f * 100 = 28.999... 被截断为 28
+ *  - 不依赖 android.*，可在JVM中测试
+ */
+final class FixedPoint {
+
+    /**
+     * 最大小数位数。10^9 放大后，long仍能表示约 ±9.2e9 的数值
+     */
+    static final int MAX_SCALE = 9;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        long power = 1;
+        for (int i = 0; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+    }
+
+    private FixedPoint() {
+    }
+
+    /**
+     * 放大倍数：10^scale
+     */
+    static long factorOf(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException(String.format("The scale of %d is out of range: [0, %d]",
+                    scale, MAX_SCALE));
+        }
+        return POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * 真实数值转定点数，四舍五入
+     */
+    static long toFixed(float value, int scale) {
+        return Math.round((double) value * factorOf(scale));
+    }
+
+    /**
+     * 定点数转真实数值
+     */
+    static float toFloat(long fixed, int scale) {
+        return (float) ((double) fixed / factorOf(scale));
+    }
+
+    /**
+     * 格式化定点数，去掉小数末尾的0。如 scale=2 时，1250 -> "12.5"，1200 -> "12"
+     */
+    static String format(long fixed, int scale) {
+        final long factor = factorOf(scale);
+        final StringBuilder sb = new StringBuilder(24);
+        if (fixed < 0) {
+            sb.append('-');
+        }
+        // 取绝对值：Long.MIN_VALUE 不会出现，数值范围受 MAX_SCALE 限制
+        final long abs = Math.abs(fixed);
+        sb.append(abs / factor);
+        long fraction = abs % factor;
+        if (fraction != 0) {
+            int digits = scale;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            sb.append('.');
+            // 补齐小数前面的0，如 0.05
+            for (long f = fraction * 10; f < POWERS_OF_TEN[digits]; f *= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.zjun.widget;
+
+import android.view.Choreographer;
+
+/**
+ * FrameDispatcher
+ *
+ * 把多次请求合并到下一帧执行一次
+ *
+ * 思路：
+ *  - 滑动时，每个 ACTION_MOVE 都会改变数值，一帧内可能有多次，监听中可能有较重的操作
+ *  - 请求时只记录，并通过 Choreographer 注册下一帧的回调，已注册时不重复注册
+ *  - 只能在主线程中使用
+ */
+final class FrameDispatcher implements Choreographer.FrameCallback {
+
+    private final Runnable mAction;
+    private boolean mScheduled;
+
+    FrameDispatcher(Runnable action) {
+        mAction = action;
+    }
+
+    /**
+     * 在下一帧执行，已请求时忽略
+     */
+    void schedule() {
+        if (!mScheduled) {
+            mScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /**
+     * 取消未执行的请求
+     */
+    void cancel() {
+        if (mScheduled) {
+            mScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mAction.run();
+    }
+}
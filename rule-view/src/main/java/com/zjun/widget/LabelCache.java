@@ -0,0 +1,75 @@
+package com.zjun.widget;
+
+/**
+ * LabelCache
+ *
+ * 刻度数值缓存：缓存数值对应的文字及其宽度
+ *
+ * 思路：
+ *  - 滑动时，同一批数值会反复绘制，每帧都格式化字符串、测量宽度，是不必要的开销
+ *  - 使用直接映射（direct-mapped）的定长数组，key为放大后的整型数值，命中时不创建任何对象
+ *  - 容量有上限，冲突时直接覆盖，所以内存固定
+ *  - 数值的含义或文字大小变化时，需要调用{@link #clear()}
+ */
+final class LabelCache {
+
+    private final int mMask;
+    private final long[] mKeys;
+    private final String[] mTexts;
+    private final float[] mWidths;
+
+    /**
+     * @param capacity 容量，会向上取为2的幂
+     */
+    LabelCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mMask = size - 1;
+        mKeys = new long[size];
+        mTexts = new String[size];
+        mWidths = new float[size];
+    }
+
+    private int slotOf(long key) {
+        int hash = (int) (key ^ (key >>> 32));
+        hash ^= hash >>> 16;
+        return hash & mMask;
+    }
+
+    /**
+     * 查找数值对应的位置
+     * @return 命中时返回位置，否则返回 -1
+     */
+    int indexOf(long key) {
+        final int slot = slotOf(key);
+        return mTexts[slot] != null && mKeys[slot] == key ? slot : -1;
+    }
+
+    /**
+     * 放入缓存
+     * @return 所在位置
+     */
+    int put(long key, String text, float width) {
+        final int slot = slotOf(key);
+        mKeys[slot] = key;
+        mTexts[slot] = text;
+        mWidths[slot] = width;
+        return slot;
+    }
+
+    String textAt(int index) {
+        return mTexts[index];
+    }
+
+    float widthAt(int index) {
+        return mWidths[index];
+    }
+
+    /**
+     * 清空缓存
+     */
+    void clear() {
+        for (int i = 0; i < mTexts.length; i++) {
+            mTexts[i] = null;
+        }
+    }
+}
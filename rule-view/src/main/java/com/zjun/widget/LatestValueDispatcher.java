@@ -0,0 +1,98 @@
+package com.zjun.widget;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LatestValueDispatcher
+ *
+ * 在指定的Executor中回调最新的值，过期的中间值直接丢弃
+ *
+ * 思路：
+ *  - 监听中的操作较重（如视频解码器seek、查询数据库）时，在主线程中同步回调会卡住滑动
+ *  - 主线程只把最新值写入一个原子变量，没有正在执行的任务时才提交一个任务，不加锁、不等待
+ *  - 任务执行时取出最新值回调；回调期间又有新值时，继续回调新值，中间值被覆盖，不会排队
+ *  - 同一时间最多只有一个任务，回调是串行的，即使Executor是多线程的
+ *  - 不依赖 android.*，可在JVM中测试
+ */
+final class LatestValueDispatcher {
+
+    /**
+     * 值的消费者，在Executor的线程中调用
+     */
+    interface Consumer {
+        void accept(int value);
+    }
+
+    /**
+     * 没有待回调的值。有值时高32位为1，低32位为值
+     */
+    private static final long EMPTY = 0;
+    private static final long PRESENT = 1L << 32;
+
+    private final Executor mExecutor;
+    private final Consumer mConsumer;
+    private final AtomicLong mPending = new AtomicLong(EMPTY);
+    /**
+     * 是否已提交任务（含正在执行）
+     */
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    LatestValueDispatcher(Executor executor, Consumer consumer) {
+        if (executor == null || consumer == null) {
+            throw new IllegalArgumentException("executor and consumer must not be null");
+        }
+        mExecutor = executor;
+        mConsumer = consumer;
+    }
+
+    /**
+     * 提交新值，覆盖还未回调的值。不会阻塞（前提是Executor.execute不阻塞）
+     */
+    void post(int value) {
+        mPending.set(PRESENT | (value & 0xFFFFFFFFL));
+        if (mScheduled.compareAndSet(false, true)) {
+            try {
+                mExecutor.execute(mDrainTask);
+            } catch (RejectedExecutionException e) {
+                mScheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 丢弃还未回调的值
+     */
+    void cancel() {
+        mPending.set(EMPTY);
+    }
+
+    private void drain() {
+        while (true) {
+            final long pending = mPending.getAndSet(EMPTY);
+            if (pending != EMPTY) {
+                try {
+                    mConsumer.accept((int) pending);
+                } catch (RuntimeException e) {
+                    mScheduled.set(false);
+                    throw e;
+                }
+            }
+            mScheduled.set(false);
+            // 回调期间有新值，且没有其它任务接手时，继续回调
+            if (mPending.get() == EMPTY || !mScheduled.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.zjun.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * LineBatch
+ *
+ * 批量绘制直线
+ *
+ * 思路：
+ *  - 每条刻度调用一次 drawLine，还要在不同样式间来回 setStrokeWidth，每帧有几百次绘制调用与画笔状态变化
+ *  - 相同样式（画笔）的线，先把端点放入可复用的float数组，最后调用一次 Canvas.drawLines 绘制
+ *  - 数组容量按需翻倍扩展，稳定后每帧不再创建对象
+ */
+final class LineBatch {
+
+    /**
+     * 每条线的4个坐标：x0, y0, x1, y1
+     */
+    private float[] mPoints = new float[64 * 4];
+    private int mCount;
+
+    /**
+     * 清空，开始新的一批
+     */
+    void reset() {
+        mCount = 0;
+    }
+
+    /**
+     * 添加一条线
+     */
+    void add(float startX, float startY, float stopX, float stopY) {
+        if (mCount + 4 > mPoints.length) {
+            final float[] points = new float[mPoints.length << 1];
+            System.arraycopy(mPoints, 0, points, 0, mCount);
+            mPoints = points;
+        }
+        final float[] points = mPoints;
+        points[mCount] = startX;
+        points[mCount + 1] = startY;
+        points[mCount + 2] = stopX;
+        points[mCount + 3] = stopY;
+        mCount += 4;
+    }
+
+    /**
+     * 线的数量
+     */
+    int size() {
+        return mCount >> 2;
+    }
+
+    /**
+     * 使用同一画笔，一次绘制所有线
+     */
+    void draw(Canvas canvas, Paint paint) {
+        if (mCount > 0) {
+            canvas.drawLines(mPoints, 0, mCount, paint);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.zjun.widget;
+
+import java.util.TimeZone;
+
+/**
+ * LocalTimeAlignment
+ *
+ * 时间范围模式下，时间值（与起始时间的秒数）与本地时间（一天内的秒数）的换算
+ *
+ * 思路：
+ *  - 偏移 = 本地时间 - 时间值（对一天取模），用于对齐刻度：按 时间值 + 偏移 分类，整点为时刻度，每天从 00:00 开始标数值
+ *  - 偏移随时区偏移变化：夏令时切换后，若仍用起始时间的偏移，6小时、12小时的数值会变成 01:00、07:00、13:00
+ *  - 绘制时按偏移把可见范围分成几段，每段使用自己的偏移；查找偏移变化的位置用二分查找，O(log 可见秒数)
+ *  - 可见范围远小于两次夏令时切换的间隔，范围内最多变化一次
+ *  - 不依赖 android.*，可在JVM中用指定的时区测试
+ */
+final class LocalTimeAlignment {
+
+    private static final int DAY_SECONDS = TimeRuleView.MAX_TIME_VALUE;
+
+    private final long mStartMillis;
+    private final TimeZone mTimeZone;
+
+    /**
+     * @param startMillis 时间值0对应的时间，单位：ms
+     * @param timeZone    本地时区
+     */
+    LocalTimeAlignment(long startMillis, TimeZone timeZone) {
+        mStartMillis = startMillis;
+        mTimeZone = timeZone;
+    }
+
+    /**
+     * 时间值在本地时间一天内的秒数
+     */
+    int localDayTime(int timeValue) {
+        final long millis = mStartMillis + timeValue * 1000L;
+        final long localSeconds = (millis + mTimeZone.getOffset(millis)) / 1000;
+        return (int) ((localSeconds % DAY_SECONDS + DAY_SECONDS) % DAY_SECONDS);
+    }
+
+    /**
+     * 时间值处的偏移：本地时间 - 时间值，范围 [0, 一天)
+     */
+    int alignmentAt(int timeValue) {
+        return ((localDayTime(timeValue) - timeValue) % DAY_SECONDS + DAY_SECONDS) % DAY_SECONDS;
+    }
+
+    /**
+     * (from, to] 内第一个偏移与 from 处不同的时间值
+     *
+     * @return 没有变化时返回 -1
+     */
+    int nextChange(int from, int to) {
+        if (to <= from) {
+            return -1;
+        }
+        final int alignment = alignmentAt(from);
+        if (alignmentAt(to) == alignment) {
+            return -1;
+        }
+        int low = from;
+        int high = to;
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            if (alignmentAt(mid) == alignment) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
+    }
+}
@@ -9,13 +9,13 @@ import android.support.annotation.Nullable;
 import android.text.TextPaint;
 import android.text.TextUtils;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.Scroller;
+
+import java.util.concurrent.Executor;
 
 /**
  * MoneySelectRuleView
@@ -23,6 +23,12 @@ import android.widget.Scroller;
  *
  * 每隔固定100
  *
+ * 长、短刻度分别批量绘制（Canvas.drawLines），每帧只修改几次画笔
+ * 可选的刻度层分块缓存{@link RuleTileCache}，与当前值无关，滑动时只平移、拼接
+ * 滑动动画使用{@link RuleScroller}，惯性滑动停止在刻度上，到两端时越界回弹
+ * 金额范围很大时（如10^9），总距离超出int与float的精度：当前距离相对于一个原点，距离过大或停止时把原点移到当前金额，
+ * 总距离只用double表示，每帧的计算量只与可见刻度数有关
+ *
  * 参考：{@link RuleView}
  *
  * Author: Ralap
@@ -32,6 +38,19 @@ import android.widget.Scroller;
 public class MoneySelectRuleView extends View {
 
     private static final boolean LOG_ENABLE = BuildConfig.DEBUG;
+    private static final String TAG = "MoneySelectRuleView";
+    /**
+     * 吸附到刻度的动画时长，单位：ms
+     */
+    private static final int SNAP_DURATION = 150;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：dp
+     */
+    private static final int OVER_SCROLL_DP = 24;
+    /**
+     * 距离值超过此值时，把原点移到当前金额，保证float精度
+     */
+    private static final float REBASE_DISTANCE = 1 << 12;
 
     /**
      * 滑动阈值
@@ -67,17 +86,87 @@ public class MoneySelectRuleView extends View {
     private int valueUnit;
     private int valuePerCount;
 
-    
+
+    /**
+     * 原点与0的距离。原点在刻度上，距离过大或停止时移到当前金额
+     */
+    private double mOriginDistance;
+    /**
+     * 当前位置与原点的距离，只在原点附近，float精度足够
+     */
     private float mCurrentDistance;
-    private int mWidthRangeValue;
-    private int mRangeDistance;
+    /**
+     * 最大值与0的距离，范围很大时超出float精度，使用double
+     */
+    private double mRangeDistance;
+    /**
+     * 滑动动画上一帧的位置、开始时与0的距离。滑动器只提供相对于开始位置的偏移，不受原点移动的影响
+     */
+    private int mLastScrollX;
+    private double mScrollStartDistance;
+    /**
+     * 刻度布局：金额与距离的换算、可见刻度的计算
+     */
+    private final RuleLayout mLayout = new RuleLayout();
+    /**
+     * 刻度层的分块绘制缓存，null 表示不使用
+     */
+    private RuleTileCache mTileCache;
+    private RuleTileCache.TileRenderer mTileRenderer;
+    /**
+     * 绘制统计，null 表示未开启
+     */
+    private RuleMetrics mMetrics;
+    private RuleMetrics.OnFrameMetricsListener mMetricsListener;
 
     private int mWidth, mHeight, mHalfWidth;
     private Paint mPaint;
     private TextPaint mTextPaint;
-    private Scroller mScroller;
+    /**
+     * 批量绘制：短刻度（含参考线）、长刻度
+     */
+    private final LineBatch mShortLines = new LineBatch();
+    private final LineBatch mLongLines = new LineBatch();
+    private RuleScroller mScroller;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：px
+     */
+    private int mOverScrollDistance;
+    /**
+     * 吸附规则：最近的刻度
+     */
+    private final RuleScroller.Snapper mSnapper = new RuleScroller.Snapper() {
+        @Override
+        public int snap(int x) {
+            // 滑动器的位置相对于开始位置
+            final double distance = mScrollStartDistance + x;
+            return clampToInt(mLayout.distanceOf(mLayout.roundValueAt(distance)) - mScrollStartDistance);
+        }
+    };
     private VelocityTracker mVelocityTracker;
     private OnValueChangedListener mListener;
+    private OnValueSettledListener mSettledListener;
+    /**
+     * 值变化的回调合并到下一帧
+     */
+    private final FrameDispatcher mValueDispatcher = new FrameDispatcher(new Runnable() {
+        @Override
+        public void run() {
+            flushValueChanged();
+        }
+    });
+    /**
+     * 上次回调的值，未回调时为 Integer.MIN_VALUE
+     */
+    private int mDispatchedValue = Integer.MIN_VALUE;
+    /**
+     * 本次手势中已回调停止的值，按下时清除，避免惯性滑动与回弹各回调一次
+     */
+    private int mSettledValue = Integer.MIN_VALUE;
+    /**
+     * 在Executor中回调值变化，null 表示在主线程中回调
+     */
+    private LatestValueDispatcher mAsyncValueDispatcher;
 
     public interface OnValueChangedListener {
         /**
@@ -88,6 +177,13 @@ public class MoneySelectRuleView extends View {
 
     }
 
+    /**
+     * 值停止变化监听：惯性滑动或吸附到刻度结束时回调一次
+     */
+    public interface OnValueSettledListener {
+        void onValueSettled(int value);
+    }
+
     public MoneySelectRuleView(Context context) {
         this(context, null);
     }
@@ -111,9 +207,32 @@ public class MoneySelectRuleView extends View {
     }
 
     private void calculateValues() {
-        mCurrentDistance = (float) currentValue / valueUnit * unitGap;
-        mRangeDistance = (int) (maxValue / valueUnit * unitGap);
-        mWidthRangeValue = (int) (mWidth / unitGap * valueUnit);
+        // 刻度网格从0开始
+        final int perCount = valuePerCount * valueUnit;
+        mLayout.setRange(0, maxValue);
+        mLayout.setGrid(0, 0, valueUnit, unitGap);
+        mLayout.setClassification(0, 0, perCount, perCount);
+        mRangeDistance = mLayout.distanceOf(maxValue);
+        moveOrigin(currentValue);
+    }
+
+    /**
+     * 把原点移到指定金额，当前位置也移到原点
+     */
+    private void moveOrigin(long originValue) {
+        mOriginDistance = mLayout.distanceOf(originValue);
+        mCurrentDistance = 0;
+    }
+
+    /**
+     * 当前位置与0的距离
+     */
+    private double currentDistance() {
+        return mOriginDistance + mCurrentDistance;
+    }
+
+    private static int clampToInt(double value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(value)));
     }
 
     private void init(Context context) {
@@ -124,7 +243,19 @@ public class MoneySelectRuleView extends View {
         mTextPaint.setTextSize(balanceTextSize);
         mTextPaint.setColor(gradationTextColor);
 
-        mScroller = new Scroller(context);
+        // 两侧扩展的刻度数：3个单位，再加上最宽数值（最大金额）的半宽，避免数值在绘制区域或缓存块的边缘被截断
+        mTextPaint.setTextSize(gradationTextSize);
+        final float maxHalfWidth = mTextPaint.measureText(Integer.toString(maxValue)) * .5f;
+        mTextPaint.setTextSize(balanceTextSize);
+        mLayout.setExpendUnits(3 + (int) Math.ceil(maxHalfWidth / unitGap));
+
+        mScroller = new RuleScroller(context, new RuleScroller.Callback() {
+            @Override
+            public void onScrollFrame(int currX, boolean finished) {
+                onScrollFrame(currX, finished);
+            }
+        });
+        mOverScrollDistance = dp2px(OVER_SCROLL_DP);
 
         mVelocityTracker = VelocityTracker.obtain();
     }
@@ -154,7 +285,11 @@ public class MoneySelectRuleView extends View {
         balanceValue = ta.getInt(R.styleable.MoneySelectRuleView_msrv_balanceValue, 0);
         valueUnit = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valueUnit, 100);
         valuePerCount = ta.getInt(R.styleable.MoneySelectRuleView_msrv_valuePerCount, 10);
+        final boolean renderCacheEnabled = ta.getBoolean(R.styleable.MoneySelectRuleView_zjun_renderCacheEnabled, false);
         ta.recycle();
+        if (renderCacheEnabled) {
+            setRenderCacheEnabled(true);
+        }
     }
 
     @Override
@@ -167,16 +302,20 @@ public class MoneySelectRuleView extends View {
         if (heightMode == MeasureSpec.AT_MOST) {
             mHeight = dp2px(60);
             gradationHeight = dp2px(40);
+            // 刻度层的位置可能已变化
+            clearRenderCache();
         }
 
-        mWidthRangeValue = (int) (mWidth / unitGap * valueUnit);
-
         setMeasuredDimension(mWidth, mHeight);
     }
 
     private int mDownX, mDownY;
     private int mLastX, mLastY;
     private boolean mIsMoving;
+    /**
+     * 按下时是否停止了惯性滑动或吸附
+     */
+    private boolean mIsFlingStopped;
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
@@ -187,15 +326,18 @@ public class MoneySelectRuleView extends View {
             mVelocityTracker = VelocityTracker.obtain();
         }
         mVelocityTracker.addMovement(event);
-        logD("onTouchEvent: action=%d", action);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "onTouchEvent: action=%d", action);
+        }
         switch (action) {
             case MotionEvent.ACTION_DOWN:
                 mIsMoving = false;
                 mDownX = x;
                 mDownY = y;
-                if (!mScroller.isFinished()) {
-                    mScroller.forceFinished(true);
-                }
+                mIsFlingStopped = !mScroller.isFinished();
+                mScroller.abort();
+                // 新的手势：停止回调一次，即使停在与上次相同的值上
+                mSettledValue = Integer.MIN_VALUE;
                 break;
             case MotionEvent.ACTION_MOVE:
                 final int dx = x - mLastX;
@@ -211,27 +353,38 @@ public class MoneySelectRuleView extends View {
                 break;
             case MotionEvent.ACTION_UP:
                 if (!mIsMoving) {
+                    // 按下可能停在了越界回弹的中途或刻度之间：回弹到范围内，或吸附到最近的刻度
+                    if (mIsFlingStopped) {
+                        mIsFlingStopped = false;
+                        if (!springBack()) {
+                            snapToGradation();
+                        }
+                    }
                     break;
                 }
                 // 计算速度
                 mVelocityTracker.computeCurrentVelocity(1000, MAX_FLING_VELOCITY);
                 // 获取当前的水平速度
                 int xVelocity = (int) mVelocityTracker.getXVelocity();
-                logD("up: xVelocity=%d", xVelocity);
+                if (LOG_ENABLE) {
+                    RuleLog.d(TAG, "up: xVelocity=%d", xVelocity);
+                }
                 if (Math.abs(xVelocity) < MIN_FLING_VELOCITY) {
                     // 滑动刻度
-                    scrollToGradation();
+                    snapToGradation();
                 } else {
                     // 惯性滑动。
-                    mScroller.fling((int) mCurrentDistance, 0, -xVelocity, 0, 0, mRangeDistance, 0, 0);
+                    if (mMetrics != null) {
+                        mMetrics.onFlingStart();
+                    }
+                    flingToGradation(-xVelocity);
                     invalidate();
                 }
                 break;
             case MotionEvent.ACTION_CANCEL:
-                if (!mScroller.isFinished()) {
-                    // 结束滑动，并把数值立马置为终点值
-                    mScroller.abortAnimation();
-                }
+                // 结束滑动，并立即停在最近的刻度上
+                mScroller.abort();
+                scrollToGradation();
                 break;
             default: break;
         }
@@ -245,15 +398,14 @@ public class MoneySelectRuleView extends View {
      */
     private void scrollToGradation() {
         // 最近的刻度
-        currentValue = Math.round(mCurrentDistance / unitGap) * valueUnit;
-        // 校验边界
-        currentValue = Math.min(maxValue, Math.max(0, currentValue));
-        // 计算新刻度位置
-        mCurrentDistance = currentValue / valueUnit * unitGap;
-        logD("scrollToGradation: currentValue=%d, mCurrentDistance=%f", currentValue, mCurrentDistance);
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
+        // 最近的刻度，已校验边界
+        currentValue = (int) mLayout.roundValueAt(currentDistance());
+        // 原点移到刻度上，当前距离为0
+        moveOrigin(currentValue);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "scrollToGradation: currentValue=%d, mCurrentDistance=%f", currentValue, mCurrentDistance);
         }
+        dispatchValueSettled();
         invalidate();
     }
 
@@ -261,96 +413,229 @@ public class MoneySelectRuleView extends View {
      * 校验距离，并重新计算当前值
      */
     private void computeValue() {
-        logD("computeValue: mRangeDistance=%d, mCurrentDistance=%f", mRangeDistance, mCurrentDistance);
-        mCurrentDistance = Math.min(mRangeDistance, Math.max(0, mCurrentDistance));
-        currentValue = (int)(mCurrentDistance / unitGap) * valueUnit;
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "computeValue: mRangeDistance=%f, mCurrentDistance=%f", mRangeDistance, mCurrentDistance);
+        }
+        final double distance = Math.min(mRangeDistance, Math.max(0, currentDistance()));
+        mCurrentDistance = (float) (distance - mOriginDistance);
+        updateValue();
+        dispatchValueChanged();
+        invalidate();
+    }
+
+    /**
+     * 根据距离计算当前值，不限定距离：越界回弹时取端点值。距离过大时移动原点
+     */
+    private void updateValue() {
+        currentValue = (int) mLayout.floorValueAt(currentDistance());
+        if (Math.abs(mCurrentDistance) > REBASE_DISTANCE) {
+            final double distance = currentDistance();
+            mOriginDistance = mLayout.distanceOf(currentValue);
+            mCurrentDistance = (float) (distance - mOriginDistance);
+        }
+    }
+
+    /**
+     * 越界时回弹到范围内，回弹结束时吸附到刻度上
+     * @return 是否需要回弹
+     */
+    private boolean springBack() {
+        mScrollStartDistance = currentDistance();
+        mLastScrollX = 0;
+        return mScroller.springBack(0, clampToInt(-mScrollStartDistance),
+                clampToInt(mRangeDistance - mScrollStartDistance));
+    }
+
+    /**
+     * 动画滑动到最近的刻度上
+     */
+    private void snapToGradation() {
+        mScrollStartDistance = currentDistance();
+        final int dx = mSnapper.snap(0);
+        if (dx == 0) {
+            scrollToGradation();
+        } else {
+            mLastScrollX = 0;
+            mScroller.startScroll(0, dx, SNAP_DURATION);
         }
-        postInvalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        final RuleMetrics metrics = mMetrics;
+        final long startNanos = metrics != null ? metrics.beginFrame("MoneySelectRuleView#onDraw") : 0;
         // 背景
         canvas.drawColor(bgColor);
-        // 刻度数值
-        drawRule(canvas);
+        // 刻度数值。使用缓存时，只拼接可见的块
+        if (mTileCache != null) {
+            mTileCache.draw(canvas, currentDistance() - mHalfWidth, mWidth, mHeight, bgColor, mTileRenderer);
+        } else {
+            drawRule(canvas, currentDistance() - mHalfWidth, mWidth);
+        }
         // 绘制指针
         drawIndicator(canvas);
+        if (metrics != null) {
+            metrics.endFrame(startNanos);
+            if (mMetricsListener != null) {
+                mMetricsListener.onFrameMetrics(metrics);
+            }
+        }
+    }
+
+    /**
+     * 请求回调值变化：合并到下一帧，一帧最多回调一次
+     */
+    private void dispatchValueChanged() {
+        if (mListener != null) {
+            mValueDispatcher.schedule();
+        }
+    }
+
+    /**
+     * 立即回调值变化，值未变化时不回调。开启统计时记录回调耗时
+     */
+    private void flushValueChanged() {
+        mValueDispatcher.cancel();
+        if (mListener == null || currentValue == mDispatchedValue) {
+            return;
+        }
+        mDispatchedValue = currentValue;
+        final RuleMetrics metrics = mMetrics;
+        if (metrics == null) {
+            deliverValueChanged(currentValue);
+            return;
+        }
+        final long startNanos = metrics.beginDispatch("MoneySelectRuleView#onValueChanged");
+        deliverValueChanged(currentValue);
+        metrics.endDispatch(startNanos);
+    }
+
+    private void deliverValueChanged(int value) {
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.post(value);
+        } else {
+            mListener.onValueChanged(value);
+        }
+    }
+
+    /**
+     * 滑动停止：先回调未回调的变化，再回调停止。每次手势只回调一次
+     */
+    private void dispatchValueSettled() {
+        flushValueChanged();
+        if (mSettledListener == null || currentValue == mSettledValue) {
+            return;
+        }
+        mSettledValue = currentValue;
+        mSettledListener.onValueSettled(currentValue);
     }
 
     /**
      * 绘制刻度、金额、及剩余额度
+     *
+     * @param leftDistance 画布 x=0 处与0的距离
+     * @param width        绘制宽度
      */
-    private void drawRule(Canvas canvas) {
+    private void drawRule(Canvas canvas, double leftDistance, int width) {
         canvas.save();
         canvas.translate(0, gradationHeight);
 
-        // 参考线
-        mPaint.setStrokeWidth(gradationShortWidth);
-        canvas.drawLine(0, 0, mWidth, 0, mPaint);
-
-        // 刻度、数值
-        final int expend = 3 * valueUnit;
-        // 起始绘制刻度
-        int start = (int) ((mCurrentDistance - mHalfWidth) / unitGap) * valueUnit;
-        start = Math.max(0, start - expend);
-        int end = Math.min(maxValue, (start + expend) + mWidthRangeValue + expend);
-        float startOffset = mHalfWidth - (mCurrentDistance - start / valueUnit * unitGap);
-        final int perCount = valuePerCount * valueUnit;
+        // 参考线：与短刻度的样式一样，放在同一批
+        final LineBatch shortLines = mShortLines;
+        final LineBatch longLines = mLongLines;
+        shortLines.reset();
+        longLines.reset();
+        shortLines.add(0, 0, width, 0);
+
+        // 刻度、数值：由布局计算可见刻度的位置与类型
+        final RuleLayout layout = mLayout;
+        final int count = layout.layout(leftDistance, width);
         // 剩余金额：向下取整
         final int balance = balanceValue / valueUnit * valueUnit;
-        logD("drawRule: mCurrentDistance=%f, start=%d, end=%d, startOffset=%f, perCount=%d",
-                mCurrentDistance, start, end, startOffset, perCount);
-        while (start <= end) {
-            if (start % perCount == 0) {
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "drawRule: mCurrentDistance=%f, leftDistance=%f, count=%d",
+                    mCurrentDistance, leftDistance, count);
+        }
+        // 数值的画笔样式只设置一次
+        mTextPaint.setTextSize(gradationTextSize);
+        mTextPaint.setColor(gradationTextColor);
+        // 剩余金额的位置，不可见时为NaN
+        float balanceOffset = Float.NaN;
+        for (int i = 0; i < count; i++) {
+            final float startOffset = layout.positionAt(i);
+            final int value = (int) layout.valueAt(i);
+            if (layout.typeAt(i) == RuleLayout.TICK_LONG) {
                 // 刻度
-                mPaint.setStrokeWidth(gradationLongWidth);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationLongLen, mPaint);
+                longLines.add(startOffset, 0, startOffset, -gradationLongLen);
 
                 // 数值
-                mTextPaint.setTextSize(gradationTextSize);
-                mTextPaint.setColor(gradationTextColor);
-                String text = Integer.toString(start);
+                String text = Integer.toString(value);
                 float textWidth = mTextPaint.measureText(text);
                 canvas.drawText(text, startOffset - textWidth * .5f, -(gradationLongLen + gradationValueGap), mTextPaint);
             } else {
-                mPaint.setStrokeWidth(gradationShortWidth);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationShortLen, mPaint);
+                shortLines.add(startOffset, 0, startOffset, -gradationShortLen);
             }
 
-            // 剩余金额
-            if (start == balance) {
-                mPaint.setColor(indicatorColor);
-                canvas.drawLine(startOffset, 0, startOffset, -gradationLongLen, mPaint);
-                mPaint.setColor(gradationColor);
-
-                mTextPaint.setTextSize(balanceTextSize);
-                mTextPaint.setColor(indicatorColor);
-                float textWidth = mTextPaint.measureText(balanceText);
-                canvas.drawText(balanceText, startOffset - textWidth * .5f, balanceGap + balanceTextSize, mTextPaint);
-                mTextPaint.setColor(gradationColor);
+            if (value == balance) {
+                balanceOffset = startOffset;
             }
+        }
 
-            start += valueUnit;
-            startOffset += unitGap;
+        // 批量绘制刻度
+        mPaint.setStrokeWidth(gradationShortWidth);
+        shortLines.draw(canvas, mPaint);
+        mPaint.setStrokeWidth(gradationLongWidth);
+        longLines.draw(canvas, mPaint);
+        if (mMetrics != null) {
+            // 参考线不算刻度；每个长刻度都有数值
+            mMetrics.addTicks(shortLines.size() - 1 + longLines.size());
+            mMetrics.addLabels(longLines.size());
+        }
+
+        // 剩余金额
+        if (!Float.isNaN(balanceOffset)) {
+            mPaint.setColor(indicatorColor);
+            canvas.drawLine(balanceOffset, 0, balanceOffset, -gradationLongLen, mPaint);
+            mPaint.setColor(gradationColor);
+
+            mTextPaint.setTextSize(balanceTextSize);
+            mTextPaint.setColor(indicatorColor);
+            float textWidth = mTextPaint.measureText(balanceText);
+            canvas.drawText(balanceText, balanceOffset - textWidth * .5f, balanceGap + balanceTextSize, mTextPaint);
         }
 
         canvas.restore();
     }
 
-    @Override
-    public void computeScroll() {
-        if (mScroller.computeScrollOffset()) {
-            if (mScroller.getCurrX() == mScroller.getFinalX()) {
-                // 已经达到终点：滑动到刻度线上
-                scrollToGradation();
-            } else {
-                mCurrentDistance = mScroller.getCurrX();
-                computeValue();
-            }
+    /**
+     * 惯性滑动：停止位置调整到最近的刻度上，整条轨迹都向刻度减速，结束时不再跳到刻度上。到两端时越界回弹
+     */
+    private void flingToGradation(int velocityX) {
+        // 滑动器从0开始，范围为当前位置到两端的距离
+        mScrollStartDistance = currentDistance();
+        mLastScrollX = 0;
+        mScroller.fling(0, velocityX, clampToInt(-mScrollStartDistance),
+                clampToInt(mRangeDistance - mScrollStartDistance), mOverScrollDistance, mSnapper);
+    }
+
+    /**
+     * 滑动动画的每一帧：更新一次位置，最多回调一次监听，请求一次重绘
+     */
+    private void onScrollFrame(int currX, boolean finished) {
+        if (mMetrics != null) {
+            mMetrics.onFlingFrame();
+        }
+        mCurrentDistance += currX - mLastScrollX;
+        mLastScrollX = currX;
+        if (finished) {
+            // 已经达到终点，终点已在刻度上，只修正小于1px的误差
+            scrollToGradation();
+            return;
         }
+        // 越界回弹时不限定距离，数值取端点值
+        updateValue();
+        flushValueChanged();
+        invalidate();
     }
 
     /**
@@ -370,13 +655,6 @@ public class MoneySelectRuleView extends View {
         return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getResources().getDisplayMetrics());
     }
 
-    @SuppressWarnings("all")
-    private void logD(String format, Object... args) {
-        if (LOG_ENABLE) {
-            Log.d("MoneySelectRuleView", String.format("zjun@" + format, args));
-        }
-    }
-
     public int getValue() {
         return currentValue;
     }
@@ -391,12 +669,8 @@ public class MoneySelectRuleView extends View {
         // 向下取整
         this.currentValue = (int) value / valueUnit * valueUnit;
         currentValue = Math.min(maxValue, Math.max(0, currentValue));
-        if (!mScroller.isFinished()) {
-            mScroller.forceFinished(true);
-        }
-        if (mListener != null) {
-            mListener.onValueChanged(currentValue);
-        }
+        mScroller.abort();
+        dispatchValueChanged();
         calculateValues();
         postInvalidate();
     }
@@ -407,10 +681,127 @@ public class MoneySelectRuleView extends View {
 
     public void setBalance(float balance) {
         this.balanceValue = (int) balance / valueUnit * valueUnit;
+        // 剩余金额在刻度层中
+        clearRenderCache();
         postInvalidate();
     }
 
+    /**
+     * 设置是否使用刻度层的分块绘制缓存
+     * 开启后，滑动时只平移、拼接已缓存的刻度块，不再每帧重新绘制刻度与数值，但会占用一定内存（默认上限4MB）
+     */
+    public void setRenderCacheEnabled(boolean enabled) {
+        if (enabled == (mTileCache != null)) {
+            return;
+        }
+        if (enabled) {
+            mTileCache = new RuleTileCache(RuleTileCache.DEFAULT_TILE_WIDTH);
+            mTileRenderer = new RuleTileCache.TileRenderer() {
+                @Override
+                public void drawTile(Canvas canvas, double tileLeft, int tileWidth) {
+                    drawRule(canvas, tileLeft, tileWidth);
+                }
+            };
+        } else {
+            mTileCache.release();
+            mTileCache = null;
+            mTileRenderer = null;
+        }
+        postInvalidate();
+    }
+
+    /**
+     * 设置刻度层缓存的内存上限
+     * @param maxBytes 内存上限，单位：byte。至少会缓存一屏的块
+     */
+    public void setRenderCacheMaxBytes(int maxBytes) {
+        if (mTileCache != null) {
+            mTileCache.setMaxBytes(maxBytes);
+            postInvalidate();
+        }
+    }
+
+    private void clearRenderCache() {
+        if (mTileCache != null) {
+            mTileCache.clear();
+        }
+    }
+
+    /**
+     * 设置是否开启绘制统计，未开启时不产生开销
+     * @see RuleMetrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled != (mMetrics != null)) {
+            mMetrics = enabled ? new RuleMetrics() : null;
+        }
+    }
+
+    /**
+     * 获取绘制统计
+     * @return 未开启时返回null
+     */
+    public RuleMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 设置每帧的统计监听，开启统计后才会回调
+     */
+    public void setOnFrameMetricsListener(RuleMetrics.OnFrameMetricsListener listener) {
+        this.mMetricsListener = listener;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScroller.abort();
+        mValueDispatcher.cancel();
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.cancel();
+        }
+        if (mTileCache != null) {
+            mTileCache.release();
+        }
+    }
+
+    /**
+     * 设置值变化监听，滑动时每帧最多回调一次，值不变时不回调
+     */
     public void setOnValueChangedListener(OnValueChangedListener listener) {
+        setOnValueChangedListener(listener, null);
+    }
+
+    /**
+     * 设置值变化监听事件，在指定的Executor中回调。适用于较重的操作，如查询数据库
+     *
+     * 只回调最新的值：回调未执行完时，期间的中间值直接丢弃，不会排队；主线程不会等待回调。
+     * 同一时间最多执行一个回调。与{@link OnValueSettledListener}（主线程）之间的先后顺序不保证
+     *
+     * @param listener 监听回调
+     * @param executor 回调所在的Executor，其 execute() 不应阻塞。为 null 时在主线程中回调
+     */
+    public void setOnValueChangedListener(final OnValueChangedListener listener, @Nullable Executor executor) {
         this.mListener = listener;
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.cancel();
+        }
+        if (listener == null || executor == null) {
+            mAsyncValueDispatcher = null;
+            return;
+        }
+        mAsyncValueDispatcher = new LatestValueDispatcher(executor, new LatestValueDispatcher.Consumer() {
+            @Override
+            public void accept(int value) {
+                listener.onValueChanged(value);
+            }
+        });
+    }
+
+    /**
+     * 设置值停止变化监听，惯性滑动或吸附到刻度结束时回调一次
+     */
+    public void setOnValueSettledListener(OnValueSettledListener listener) {
+        this.mSettledListener = listener;
     }
 }
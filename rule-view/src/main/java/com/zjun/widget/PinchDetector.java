@@ -0,0 +1,163 @@
+package com.zjun.widget;
+
+/**
+ * PinchDetector
+ *
+ * 双指缩放手势检测：跟踪最先按下的两个手指，由两指距离（跨度）的变化计算缩放因子
+ *
+ * 思路：
+ *  - 原来使用 ScaleGestureDetector，其最小跨度（mMinSpan，默认27mm）太大，只能反射修改私有字段：
+ *    第一次反射较慢，且在新版本Android中受非公开API限制
+ *  - 自己实现只需要两个手指的位置：跨度不小于最小跨度时开始缩放，之后每个采样点回调 本次跨度 / 上次跨度，
+ *    手指抬起或取消时结束。缩放中两指靠得比最小跨度更近时不结束，跨度按最小跨度计算，避免缩放因子突变
+ *  - 按采样点处理：控件把 MotionEvent 的历史采样（getHistoricalX/Y）与当前位置依次传入，
+ *    先用 move() 更新各手指的位置，再调用 sample() 计算一次，快速缩放时不丢失中间的变化
+ *  - 只跟踪两个手指；其中一个抬起时，可由控件把剩下的手指补充进来，继续缩放
+ *  - 不依赖 android.*，可在JVM中用合成的手指序列测试
+ */
+final class PinchDetector {
+
+    interface OnPinchListener {
+        /**
+         * 开始缩放
+         * @param focusX 两指的中点
+         */
+        void onPinchBegin(float focusX, float focusY);
+
+        /**
+         * 缩放，每个采样点最多回调一次
+         * @param scaleFactor 本次跨度 / 上次跨度，大于1为放大
+         */
+        void onPinch(float scaleFactor, float focusX, float focusY);
+
+        /**
+         * 结束缩放
+         */
+        void onPinchEnd();
+    }
+
+    private static final int NO_POINTER = -1;
+
+    private final OnPinchListener mListener;
+    private float mMinSpan;
+
+    /**
+     * 跟踪的两个手指：id与位置
+     */
+    private final int[] mIds = {NO_POINTER, NO_POINTER};
+    private final float[] mXs = new float[2];
+    private final float[] mYs = new float[2];
+
+    private boolean isInProgress;
+    private float mLastSpan;
+
+    /**
+     * @param minSpan 开始缩放的最小跨度，单位：px
+     */
+    PinchDetector(float minSpan, OnPinchListener listener) {
+        setMinSpan(minSpan);
+        mListener = listener;
+    }
+
+    void setMinSpan(float minSpan) {
+        if (!(minSpan >= 0)) {
+            throw new IllegalArgumentException(String.format("The minSpan(%f) must not be negative", minSpan));
+        }
+        mMinSpan = minSpan;
+    }
+
+    boolean isInProgress() {
+        return isInProgress;
+    }
+
+    /**
+     * 手指按下。已跟踪两个手指或已跟踪该手指时忽略
+     */
+    void pointerDown(int pointerId, float x, float y) {
+        if (indexOf(pointerId) >= 0) {
+            return;
+        }
+        final int index = indexOf(NO_POINTER);
+        if (index < 0) {
+            return;
+        }
+        mIds[index] = pointerId;
+        mXs[index] = x;
+        mYs[index] = y;
+    }
+
+    /**
+     * 手指移动，只更新位置，调用{@link #sample()}时才计算
+     */
+    void move(int pointerId, float x, float y) {
+        final int index = indexOf(pointerId);
+        if (index >= 0) {
+            mXs[index] = x;
+            mYs[index] = y;
+        }
+    }
+
+    /**
+     * 手指抬起。是跟踪的手指时结束缩放
+     */
+    void pointerUp(int pointerId) {
+        final int index = indexOf(pointerId);
+        if (index < 0) {
+            return;
+        }
+        mIds[index] = NO_POINTER;
+        end();
+    }
+
+    /**
+     * 所有手指抬起或手势被取消
+     */
+    void cancel() {
+        mIds[0] = NO_POINTER;
+        mIds[1] = NO_POINTER;
+        end();
+    }
+
+    /**
+     * 一个采样点的位置更新完毕，计算跨度并回调
+     */
+    void sample() {
+        if (mIds[0] == NO_POINTER || mIds[1] == NO_POINTER) {
+            return;
+        }
+        final float span = (float) Math.hypot(mXs[0] - mXs[1], mYs[0] - mYs[1]);
+        final float focusX = (mXs[0] + mXs[1]) * .5f;
+        final float focusY = (mYs[0] + mYs[1]) * .5f;
+        if (!isInProgress) {
+            if (span < mMinSpan || span == 0) {
+                // 两指太近：张开后再开始
+                return;
+            }
+            isInProgress = true;
+            mLastSpan = span;
+            mListener.onPinchBegin(focusX, focusY);
+            return;
+        }
+        // 缩放中两指太近：限定为最小跨度，继续到手指抬起或取消
+        final float clampedSpan = Math.max(span, mMinSpan);
+        if (clampedSpan != 0 && clampedSpan != mLastSpan) {
+            final float scaleFactor = clampedSpan / mLastSpan;
+            mLastSpan = clampedSpan;
+            mListener.onPinch(scaleFactor, focusX, focusY);
+        }
+    }
+
+    private void end() {
+        if (isInProgress) {
+            isInProgress = false;
+            mListener.onPinchEnd();
+        }
+    }
+
+    private int indexOf(int pointerId) {
+        if (mIds[0] == pointerId) {
+            return 0;
+        }
+        return mIds[1] == pointerId ? 1 : -1;
+    }
+}
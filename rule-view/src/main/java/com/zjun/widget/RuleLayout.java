@@ -0,0 +1,230 @@
+package com.zjun.widget;
+
+/**
+ * RuleLayout
+ *
+ * 刻度布局计算：数值与距离的换算、可见范围、刻度分类
+ *
+ * 思路：
+ *  - 三个刻度控件的刻度都是等间距的网格：刻度值为 anchor + k * unit，相邻刻度的距离为 unitGap
+ *  - 距离以 origin 为0点：distance = (value - origin) / unit * unitGap
+ *  - 只计算绘制宽度内的刻度（两侧扩展若干个刻度），结果写入可复用的基本类型数组：位置、数值、类型、是否有数值
+ *  - 刻度类型：(value + classifyOffset) 能被 longEvery 整除为长刻度，能被 middleEvery 整除为中刻度，否则为短刻度
+ *  - 不依赖 android.*，可在JVM中直接测试
+ */
+final class RuleLayout {
+
+    static final int TICK_SHORT = 0;
+    static final int TICK_MIDDLE = 1;
+    static final int TICK_LONG = 2;
+
+    /**
+     * 由距离计算数值时的容差（单位：刻度），避免 k * unitGap 因浮点误差被向下取整到 k - 1
+     */
+    private static final double FLOOR_EPSILON = 1e-4;
+
+    private long mMinValue;
+    private long mMaxValue;
+    private long mOrigin;
+    private long mAnchor;
+    private long mUnit = 1;
+    private float mUnitGap = 1;
+    private long mClassifyOffset;
+    private long mMiddleEvery;
+    private long mLongEvery = 1;
+    private long mLabelEvery = 1;
+    private int mExpendUnits;
+
+    private float[] mPositions = new float[64];
+    private long[] mValues = new long[64];
+    private int[] mTypes = new int[64];
+    private boolean[] mLabels = new boolean[64];
+    private int mCount;
+
+    /**
+     * 设置数值范围，超出范围的刻度不计算
+     */
+    void setRange(long minValue, long maxValue) {
+        if (minValue > maxValue) {
+            throw new IllegalArgumentException(String.format("minValue(%d) > maxValue(%d)", minValue, maxValue));
+        }
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+    }
+
+    /**
+     * 设置刻度网格
+     *
+     * @param origin  距离为0处的数值
+     * @param anchor  任意一个刻度的数值，刻度值为 anchor + k * unit
+     * @param unit    相邻刻度的数值差
+     * @param unitGap 相邻刻度的距离
+     */
+    void setGrid(long origin, long anchor, long unit, float unitGap) {
+        if (unit <= 0 || !(unitGap > 0)) {
+            throw new IllegalArgumentException(String.format("unit(%d) and unitGap(%f) must be positive", unit, unitGap));
+        }
+        mOrigin = origin;
+        mAnchor = anchor;
+        mUnit = unit;
+        mUnitGap = unitGap;
+    }
+
+    /**
+     * 设置刻度分类
+     *
+     * @param classifyOffset 分类前加到数值上的偏移，如时间的时区对齐
+     * @param middleEvery    中刻度的间隔，0 表示没有中刻度
+     * @param longEvery      长刻度的间隔
+     * @param labelEvery     数值的间隔
+     */
+    void setClassification(long classifyOffset, long middleEvery, long longEvery, long labelEvery) {
+        if (longEvery <= 0 || labelEvery <= 0 || middleEvery < 0) {
+            throw new IllegalArgumentException(String.format("Invalid classification: middleEvery=%d, " +
+                    "longEvery=%d, labelEvery=%d", middleEvery, longEvery, labelEvery));
+        }
+        mClassifyOffset = classifyOffset;
+        mMiddleEvery = middleEvery;
+        mLongEvery = longEvery;
+        mLabelEvery = labelEvery;
+    }
+
+    /**
+     * 设置两侧扩展的刻度数，避免数值文字在边缘突变
+     */
+    void setExpendUnits(int expendUnits) {
+        mExpendUnits = Math.max(0, expendUnits);
+    }
+
+    /**
+     * 数值对应的距离
+     */
+    double distanceOf(long value) {
+        return (value - mOrigin) * (double) mUnitGap / mUnit;
+    }
+
+    /**
+     * 距离处（含）左侧最近的刻度值，限定在范围内
+     */
+    long floorValueAt(double distance) {
+        final double units = (mOrigin - mAnchor + distance * mUnit / mUnitGap) / mUnit;
+        return clampToGrid(mAnchor + (long) Math.floor(units + FLOOR_EPSILON) * mUnit);
+    }
+
+    /**
+     * 距离处最近的刻度值，限定在范围内
+     */
+    long roundValueAt(double distance) {
+        final double units = (mOrigin - mAnchor + distance * mUnit / mUnitGap) / mUnit;
+        return clampToGrid(mAnchor + Math.round(units) * mUnit);
+    }
+
+    /**
+     * 限定在范围内，且仍在网格上
+     */
+    private long clampToGrid(long value) {
+        if (value < mMinValue) {
+            value += ceilDiv(mMinValue - value, mUnit) * mUnit;
+        } else if (value > mMaxValue) {
+            value -= ceilDiv(value - mMaxValue, mUnit) * mUnit;
+        }
+        return value;
+    }
+
+    /**
+     * 计算绘制宽度内的刻度
+     *
+     * @param leftDistance 绘制区域 x=0 处的距离
+     * @param width        绘制宽度
+     * @return 刻度数量
+     */
+    int layout(double leftDistance, int width) {
+        mCount = 0;
+        final long unit = mUnit;
+        final double valuePerPx = (double) unit / mUnitGap;
+        final long expend = mExpendUnits * unit;
+        // 左侧第一个刻度：对齐到网格
+        long start = mOrigin + (long) Math.floor(leftDistance * valuePerPx) - expend;
+        start = Math.max(start, mMinValue);
+        final long remainder = floorMod(start - mAnchor, unit);
+        if (remainder != 0) {
+            start += unit - remainder;
+        }
+        long end = mOrigin + (long) Math.ceil((leftDistance + width) * valuePerPx) + expend;
+        end = Math.min(end, mMaxValue);
+        if (start > end) {
+            return 0;
+        }
+        ensureCapacity((int) ((end - start) / unit) + 1);
+
+        final float[] positions = mPositions;
+        final long[] values = mValues;
+        final int[] types = mTypes;
+        final boolean[] labels = mLabels;
+        final long offset = mClassifyOffset;
+        final long middleEvery = mMiddleEvery;
+        final long longEvery = mLongEvery;
+        final long labelEvery = mLabelEvery;
+        final float unitGap = mUnitGap;
+        // 使用double计算第一个刻度的位置，之后累加
+        float position = (float) (distanceOf(start) - leftDistance);
+        int count = 0;
+        for (long value = start; value <= end; value += unit) {
+            final long classified = value + offset;
+            positions[count] = position;
+            values[count] = value;
+            if (classified % longEvery == 0) {
+                types[count] = TICK_LONG;
+            } else if (middleEvery != 0 && classified % middleEvery == 0) {
+                types[count] = TICK_MIDDLE;
+            } else {
+                types[count] = TICK_SHORT;
+            }
+            labels[count] = classified % labelEvery == 0;
+            count++;
+            position += unitGap;
+        }
+        mCount = count;
+        return count;
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    float positionAt(int index) {
+        return mPositions[index];
+    }
+
+    long valueAt(int index) {
+        return mValues[index];
+    }
+
+    int typeAt(int index) {
+        return mTypes[index];
+    }
+
+    boolean hasLabelAt(int index) {
+        return mLabels[index];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mPositions.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, mPositions.length << 1);
+        mPositions = new float[newCapacity];
+        mValues = new long[newCapacity];
+        mTypes = new int[newCapacity];
+        mLabels = new boolean[newCapacity];
+    }
+
+    private static long floorMod(long x, long y) {
+        final long mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return (x + y - 1) / y;
+    }
+}
@@ -0,0 +1,183 @@
+package com.zjun.widget;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+
+/**
+ * RuleLog
+ *
+ * 不创建对象的调试日志
+ *
+ * 思路：
+ *  - 原来的 logD(String, Object...) 每次调用都要创建可变参数数组、装箱数值，绘制循环中按刻度数量创建对象
+ *  - 调用处先判断 LOG_ENABLE，关闭时不产生任何开销
+ *  - 参数使用基本类型的重载（int、long、float都可无损或近似地放入double），写入定长的环形缓冲区，不创建对象
+ *  - 格式化与输出到logcat，在主线程空闲时（IdleHandler）统一进行，不占用绘制与触摸事件的时间
+ *  - 格式中的 %d 按整数输出，%b 按 非0 输出，其它按浮点数输出；%s 只支持一个已有的字符串参数
+ */
+final class RuleLog {
+
+    /**
+     * 缓冲区容量，已满时覆盖最早的记录
+     */
+    private static final int CAPACITY = 256;
+    /**
+     * 每条记录最多的数值参数个数
+     */
+    private static final int MAX_ARGS = 5;
+
+    private static final String[] sTags = new String[CAPACITY];
+    private static final String[] sFormats = new String[CAPACITY];
+    private static final String[] sTexts = new String[CAPACITY];
+    private static final int[] sArgCounts = new int[CAPACITY];
+    private static final double[] sArgs = new double[CAPACITY * MAX_ARGS];
+    /**
+     * 下一条记录的位置
+     */
+    private static int sHead;
+    /**
+     * 未输出的记录数
+     */
+    private static int sCount;
+    /**
+     * 被覆盖而丢失的记录数
+     */
+    private static int sDropped;
+    private static boolean sFlushScheduled;
+
+    private static final MessageQueue.IdleHandler FLUSH_HANDLER = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            flush();
+            return false;
+        }
+    };
+
+    private RuleLog() {
+    }
+
+    static void d(String tag, String format) {
+        record(tag, format, null, 0, 0, 0, 0, 0, 0);
+    }
+
+    static void d(String tag, String format, String text) {
+        record(tag, format, text, 0, 0, 0, 0, 0, 0);
+    }
+
+    static void d(String tag, String format, double a) {
+        record(tag, format, null, 1, a, 0, 0, 0, 0);
+    }
+
+    static void d(String tag, String format, double a, double b) {
+        record(tag, format, null, 2, a, b, 0, 0, 0);
+    }
+
+    static void d(String tag, String format, double a, double b, double c) {
+        record(tag, format, null, 3, a, b, c, 0, 0);
+    }
+
+    static void d(String tag, String format, double a, double b, double c, double d) {
+        record(tag, format, null, 4, a, b, c, d, 0);
+    }
+
+    static void d(String tag, String format, double a, double b, double c, double d, double e) {
+        record(tag, format, null, 5, a, b, c, d, e);
+    }
+
+    private static synchronized void record(String tag, String format, String text, int argCount,
+                                            double a, double b, double c, double d, double e) {
+        final int index = sHead;
+        sTags[index] = tag;
+        sFormats[index] = format;
+        sTexts[index] = text;
+        sArgCounts[index] = argCount;
+        final int offset = index * MAX_ARGS;
+        sArgs[offset] = a;
+        sArgs[offset + 1] = b;
+        sArgs[offset + 2] = c;
+        sArgs[offset + 3] = d;
+        sArgs[offset + 4] = e;
+        sHead = (index + 1) % CAPACITY;
+        if (sCount < CAPACITY) {
+            sCount++;
+        } else {
+            sDropped++;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * 只在主线程中注册空闲回调，后台线程的记录随下一次主线程的输出一起输出
+     */
+    private static void scheduleFlush() {
+        if (sFlushScheduled) {
+            return;
+        }
+        final Looper looper = Looper.myLooper();
+        if (looper != null && looper == Looper.getMainLooper()) {
+            sFlushScheduled = true;
+            Looper.myQueue().addIdleHandler(FLUSH_HANDLER);
+        }
+    }
+
+    /**
+     * 输出缓冲区中的所有记录到logcat
+     */
+    static void flush() {
+        final StringBuilder sb = new StringBuilder();
+        synchronized (RuleLog.class) {
+            sFlushScheduled = false;
+            if (sDropped > 0) {
+                Log.d("RuleLog", "zjun@dropped " + sDropped + " records");
+                sDropped = 0;
+            }
+            int index = (sHead - sCount + CAPACITY) % CAPACITY;
+            for (; sCount > 0; sCount--) {
+                sb.setLength(0);
+                sb.append("zjun@");
+                appendFormatted(sb, index);
+                Log.d(sTags[index], sb.toString());
+                sTags[index] = null;
+                sFormats[index] = null;
+                sTexts[index] = null;
+                index = (index + 1) % CAPACITY;
+            }
+        }
+    }
+
+    /**
+     * 按格式输出一条记录
+     */
+    private static void appendFormatted(StringBuilder sb, int index) {
+        final String format = sFormats[index];
+        final int offset = index * MAX_ARGS;
+        final int argCount = sArgCounts[index];
+        int argIndex = 0;
+        final int length = format.length();
+        for (int i = 0; i < length; i++) {
+            final char c = format.charAt(i);
+            if (c != '%' || i + 1 >= length) {
+                sb.append(c);
+                continue;
+            }
+            final char conversion = format.charAt(++i);
+            if (conversion == '%') {
+                sb.append('%');
+            } else if (conversion == 's') {
+                sb.append(sTexts[index]);
+            } else if (argIndex >= argCount) {
+                sb.append('%').append(conversion);
+            } else {
+                final double value = sArgs[offset + argIndex++];
+                if (conversion == 'd') {
+                    sb.append((long) value);
+                } else if (conversion == 'b') {
+                    sb.append(value != 0);
+                } else {
+                    sb.append(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.zjun.widget;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * RuleMetrics
+ *
+ * 刻度控件的绘制统计，用于线上观察控件的开销
+ *
+ * 思路：
+ *  - 默认关闭，控件中只保存一个null引用，关闭时每帧只多一次判空
+ *  - 开启后，统计 onDraw 耗时的分布（直方图）、每帧绘制的刻度/数值/时间块数量、回调耗时、惯性滑动的帧数
+ *  - 只使用基本类型的字段，统计过程不创建对象。可每帧通过监听获取，也可随时调用{@link #copyTo(RuleMetrics)}获取快照
+ *  - 开启后同时输出 android.os.Trace 片段（API 18+），可在 Systrace/Perfetto 中查看
+ *  - 只在主线程中读写
+ */
+public final class RuleMetrics {
+
+    /**
+     * 每帧的统计监听
+     */
+    public interface OnFrameMetricsListener {
+        /**
+         * 每次 onDraw 结束后，在主线程中调用
+         * @param metrics 控件的统计，只在回调中有效，需要保存时使用{@link #copyTo(RuleMetrics)}
+         */
+        void onFrameMetrics(RuleMetrics metrics);
+    }
+
+    private static final boolean TRACE_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+    /**
+     * 绘制耗时直方图各区间的上限，单位：ns。最后一个区间没有上限
+     */
+    private static final long[] DRAW_TIME_BUCKET_BOUNDS = {
+            500000L, 1000000L, 2000000L, 4000000L, 8000000L, 16000000L, 32000000L, Long.MAX_VALUE
+    };
+
+    /**
+     * 绘制耗时直方图的区间数
+     */
+    public static final int DRAW_TIME_BUCKET_COUNT = DRAW_TIME_BUCKET_BOUNDS.length;
+
+    private final long[] mDrawTimeHistogram = new long[DRAW_TIME_BUCKET_COUNT];
+    private long mFrameCount;
+    private long mTotalDrawTimeNanos;
+    private long mMaxDrawTimeNanos;
+    private long mLastDrawTimeNanos;
+
+    private int mFrameTicks;
+    private int mFrameLabels;
+    private int mFrameTimeParts;
+    private int mLastFrameTicks;
+    private int mLastFrameLabels;
+    private int mLastFrameTimeParts;
+
+    private long mDispatchCount;
+    private long mTotalDispatchNanos;
+    private long mMaxDispatchNanos;
+
+    private long mFlingCount;
+    private long mFlingFrameCount;
+
+    /**
+     * 获取绘制耗时直方图第 index 个区间的上限
+     * @return 单位：ns，最后一个区间为 Long.MAX_VALUE
+     */
+    public static long getDrawTimeBucketBoundNanos(int index) {
+        return DRAW_TIME_BUCKET_BOUNDS[index];
+    }
+
+    static void beginSection(String sectionName) {
+        if (TRACE_SUPPORTED) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    static void endSection() {
+        if (TRACE_SUPPORTED) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * 开始一帧的统计
+     * @return 开始时间，传给{@link #endFrame(long)}
+     */
+    long beginFrame(String sectionName) {
+        beginSection(sectionName);
+        mFrameTicks = 0;
+        mFrameLabels = 0;
+        mFrameTimeParts = 0;
+        return System.nanoTime();
+    }
+
+    void endFrame(long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        endSection();
+        mFrameCount++;
+        mTotalDrawTimeNanos += duration;
+        mLastDrawTimeNanos = duration;
+        if (duration > mMaxDrawTimeNanos) {
+            mMaxDrawTimeNanos = duration;
+        }
+        int bucket = 0;
+        while (duration > DRAW_TIME_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        mDrawTimeHistogram[bucket]++;
+        mLastFrameTicks = mFrameTicks;
+        mLastFrameLabels = mFrameLabels;
+        mLastFrameTimeParts = mFrameTimeParts;
+    }
+
+    void addTicks(int count) {
+        mFrameTicks += count;
+    }
+
+    void addLabels(int count) {
+        mFrameLabels += count;
+    }
+
+    void addTimeParts(int count) {
+        mFrameTimeParts += count;
+    }
+
+    long beginDispatch(String sectionName) {
+        beginSection(sectionName);
+        return System.nanoTime();
+    }
+
+    void endDispatch(long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        endSection();
+        mDispatchCount++;
+        mTotalDispatchNanos += duration;
+        if (duration > mMaxDispatchNanos) {
+            mMaxDispatchNanos = duration;
+        }
+    }
+
+    void onFlingStart() {
+        mFlingCount++;
+    }
+
+    void onFlingFrame() {
+        mFlingFrameCount++;
+    }
+
+    /**
+     * 已统计的帧数
+     */
+    public long getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 绘制耗时落在第 index 个区间的帧数
+     * @see #getDrawTimeBucketBoundNanos(int)
+     */
+    public long getDrawTimeBucketCount(int index) {
+        return mDrawTimeHistogram[index];
+    }
+
+    public long getTotalDrawTimeNanos() {
+        return mTotalDrawTimeNanos;
+    }
+
+    public long getMaxDrawTimeNanos() {
+        return mMaxDrawTimeNanos;
+    }
+
+    public long getLastDrawTimeNanos() {
+        return mLastDrawTimeNanos;
+    }
+
+    /**
+     * 上一帧绘制的刻度数。使用绘制缓存时，只统计新绘制的块
+     */
+    public int getLastFrameTicks() {
+        return mLastFrameTicks;
+    }
+
+    /**
+     * 上一帧绘制的数值个数。使用绘制缓存时，只统计新绘制的块
+     */
+    public int getLastFrameLabels() {
+        return mLastFrameLabels;
+    }
+
+    /**
+     * 上一帧绘制的时间块数，只有{@link TimeRuleView}有
+     */
+    public int getLastFrameTimeParts() {
+        return mLastFrameTimeParts;
+    }
+
+    /**
+     * 值变化回调的次数
+     */
+    public long getDispatchCount() {
+        return mDispatchCount;
+    }
+
+    public long getTotalDispatchNanos() {
+        return mTotalDispatchNanos;
+    }
+
+    public long getMaxDispatchNanos() {
+        return mMaxDispatchNanos;
+    }
+
+    /**
+     * 惯性滑动的次数
+     */
+    public long getFlingCount() {
+        return mFlingCount;
+    }
+
+    /**
+     * 滑动动画（惯性滑动、吸附、回弹）的总帧数
+     */
+    public long getFlingFrameCount() {
+        return mFlingFrameCount;
+    }
+
+    /**
+     * 复制当前的统计，作为快照
+     */
+    public void copyTo(RuleMetrics out) {
+        System.arraycopy(mDrawTimeHistogram, 0, out.mDrawTimeHistogram, 0, DRAW_TIME_BUCKET_COUNT);
+        out.mFrameCount = mFrameCount;
+        out.mTotalDrawTimeNanos = mTotalDrawTimeNanos;
+        out.mMaxDrawTimeNanos = mMaxDrawTimeNanos;
+        out.mLastDrawTimeNanos = mLastDrawTimeNanos;
+        out.mLastFrameTicks = mLastFrameTicks;
+        out.mLastFrameLabels = mLastFrameLabels;
+        out.mLastFrameTimeParts = mLastFrameTimeParts;
+        out.mDispatchCount = mDispatchCount;
+        out.mTotalDispatchNanos = mTotalDispatchNanos;
+        out.mMaxDispatchNanos = mMaxDispatchNanos;
+        out.mFlingCount = mFlingCount;
+        out.mFlingFrameCount = mFlingFrameCount;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        for (int i = 0; i < DRAW_TIME_BUCKET_COUNT; i++) {
+            mDrawTimeHistogram[i] = 0;
+        }
+        mFrameCount = 0;
+        mTotalDrawTimeNanos = 0;
+        mMaxDrawTimeNanos = 0;
+        mLastDrawTimeNanos = 0;
+        mFrameTicks = 0;
+        mFrameLabels = 0;
+        mFrameTimeParts = 0;
+        mLastFrameTicks = 0;
+        mLastFrameLabels = 0;
+        mLastFrameTimeParts = 0;
+        mDispatchCount = 0;
+        mTotalDispatchNanos = 0;
+        mMaxDispatchNanos = 0;
+        mFlingCount = 0;
+        mFlingFrameCount = 0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.zjun.widget;
+
+import android.content.Context;
+import android.hardware.SensorManager;
+import android.view.Choreographer;
+import android.view.ViewConfiguration;
+import android.widget.OverScroller;
+
+/**
+ * RuleScroller
+ *
+ * 刻度控件的滑动动画：惯性滑动、滑动到指定位置、吸附到刻度，支持两端越界回弹
+ *
+ * 思路：
+ *  - 原来通过 computeScroll() 驱动 Scroller，每帧都走触摸时的校验与回调流程，且依赖绘制触发下一帧
+ *  - 使用 Choreographer 在每帧的动画阶段计算一次位置，回调给控件：控件每帧只更新一次位置、最多回调一次监听、请求一次重绘，
+ *    重绘在同一帧的绘制阶段完成
+ *  - 使用 OverScroller，惯性滑动到两端时可越界再回弹
+ *  - OverScroller 不能修改终点，吸附时由 OverScroller 的样条公式反推初速度，使自然停止的位置落在目标刻度上，
+ *    整条轨迹都向刻度减速。公式与实际不符时（如厂商修改了参数），再以估算值为起点二分查找
+ *  - 只能在主线程中使用
+ */
+final class RuleScroller implements Choreographer.FrameCallback {
+
+    interface Callback {
+        /**
+         * 每帧回调一次
+         * @param currX    当前位置，越界回弹时可能超出范围
+         * @param finished 是否为最后一帧
+         */
+        void onScrollFrame(int currX, boolean finished);
+    }
+
+    /**
+     * 吸附规则：把位置调整到最近的刻度上
+     */
+    interface Snapper {
+        int snap(int x);
+    }
+
+    /**
+     * 查找初速度时，扩大上限与二分查找各自的最大迭代次数
+     */
+    private static final int MAX_EXPAND_STEPS = 31;
+    private static final int MAX_BISECT_STEPS = 32;
+    /**
+     * 查找初速度的上限，翻倍时不溢出
+     */
+    private static final int MAX_SEARCH_VELOCITY = Integer.MAX_VALUE >> 1;
+
+    /**
+     * 与 OverScroller 的样条曲线一致的参数
+     */
+    private static final float INFLEXION = 0.35f;
+    private static final float DECELERATION_RATE = (float) (Math.log(0.78) / Math.log(0.9));
+
+    private final OverScroller mScroller;
+    private final Callback mCallback;
+    /**
+     * 摩擦系数 * 物理系数，与 OverScroller 一致
+     */
+    private final double mFlingCoeff;
+    private boolean isScheduled;
+
+    RuleScroller(Context context, Callback callback) {
+        mScroller = new OverScroller(context);
+        mCallback = callback;
+        final float ppi = context.getResources().getDisplayMetrics().density * 160.0f;
+        mFlingCoeff = ViewConfiguration.getScrollFriction() * SensorManager.GRAVITY_EARTH * 39.37f * ppi * 0.84f;
+    }
+
+    /**
+     * 惯性滑动
+     *
+     * @param overX 两端可越界的距离，0 表示不回弹
+     */
+    void fling(int startX, int velocityX, int minX, int maxX, int overX) {
+        mScroller.fling(startX, 0, velocityX, 0, minX, maxX, 0, 0, overX, 0);
+        schedule();
+    }
+
+    /**
+     * 惯性滑动，并停止在 snapper 给出的位置上。目标在两端时，由越界回弹停止在端点
+     */
+    void fling(int startX, int velocityX, int minX, int maxX, int overX, Snapper snapper) {
+        startFling(startX, velocityX, minX, maxX, overX);
+        final int finalX = mScroller.getFinalX();
+        final int targetX = snapper.snap(finalX);
+        if (targetX != finalX && targetX > minX && targetX < maxX) {
+            if (targetX == startX) {
+                mScroller.startScroll(startX, 0, 0, 0, 0);
+            } else {
+                searchVelocity(startX, targetX, minX, maxX, overX);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * 查找使惯性滑动停止在 targetX 的初速度，并以此速度开始滑动。停止距离随速度单调递增
+     */
+    private void searchVelocity(int startX, int targetX, int minX, int maxX, int overX) {
+        final int sign = targetX > startX ? 1 : -1;
+        final int distance = Math.abs(targetX - startX);
+        // 由公式反推，通常一次命中，此时已以该速度开始滑动
+        final int estimate = velocityOf(distance);
+        if (Math.abs(flingDistance(startX, sign * estimate, minX, maxX, overX) - distance) <= 1) {
+            return;
+        }
+        int low = 0;
+        int high = Math.max(1, estimate);
+        // 扩大上限，直到停止距离不小于目标距离
+        int steps = 0;
+        while (flingDistance(startX, sign * high, minX, maxX, overX) < distance
+                && high < MAX_SEARCH_VELOCITY && steps++ < MAX_EXPAND_STEPS) {
+            low = high;
+            high = Math.min(MAX_SEARCH_VELOCITY, high << 1);
+        }
+        steps = 0;
+        while (high - low > 1 && steps++ < MAX_BISECT_STEPS) {
+            final int mid = (low + high) >>> 1;
+            if (flingDistance(startX, sign * mid, minX, maxX, overX) < distance) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        // 取较近的一个
+        final int lowError = distance - flingDistance(startX, sign * low, minX, maxX, overX);
+        final int highError = flingDistance(startX, sign * high, minX, maxX, overX) - distance;
+        startFling(startX, sign * (lowError < highError ? low : high), minX, maxX, overX);
+    }
+
+    /**
+     * OverScroller 的停止距离 d = c * exp(r / (r - 1) * ln(INFLEXION * v / c)) 的反函数，c 为{@link #mFlingCoeff}
+     */
+    private int velocityOf(int distance) {
+        final double l = Math.log(distance / mFlingCoeff) * (DECELERATION_RATE - 1) / DECELERATION_RATE;
+        final double velocity = Math.exp(l) * mFlingCoeff / INFLEXION;
+        return (int) Math.max(1, Math.min(MAX_SEARCH_VELOCITY, Math.round(velocity)));
+    }
+
+    private int flingDistance(int startX, int velocityX, int minX, int maxX, int overX) {
+        startFling(startX, velocityX, minX, maxX, overX);
+        return Math.abs(mScroller.getFinalX() - startX);
+    }
+
+    /**
+     * 先停止上一次的滑动：否则同向的速度会被 OverScroller 累加
+     */
+    private void startFling(int startX, int velocityX, int minX, int maxX, int overX) {
+        mScroller.forceFinished(true);
+        mScroller.fling(startX, 0, velocityX, 0, minX, maxX, 0, 0, overX, 0);
+    }
+
+    /**
+     * 在指定时间内匀减速滑动到 startX + dx
+     */
+    void startScroll(int startX, int dx, int duration) {
+        mScroller.startScroll(startX, 0, dx, 0, Math.max(0, duration));
+        schedule();
+    }
+
+    /**
+     * 越界时回弹到范围内
+     * @return 是否需要回弹
+     */
+    boolean springBack(int startX, int minX, int maxX) {
+        if (mScroller.springBack(startX, 0, minX, maxX, 0, 0)) {
+            schedule();
+            return true;
+        }
+        return false;
+    }
+
+    boolean isFinished() {
+        return mScroller.isFinished();
+    }
+
+    /**
+     * 停止滑动，停在当前位置，不再回调
+     */
+    void abort() {
+        mScroller.forceFinished(true);
+        if (isScheduled) {
+            isScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    private void schedule() {
+        if (!isScheduled) {
+            isScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isScheduled = false;
+        if (!mScroller.computeScrollOffset()) {
+            return;
+        }
+        mCallback.onScrollFrame(mScroller.getCurrX(), mScroller.isFinished());
+        // 回调中可能停止或开始了新的滑动
+        if (!mScroller.isFinished()) {
+            schedule();
+        }
+    }
+}
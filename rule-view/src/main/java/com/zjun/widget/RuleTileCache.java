@@ -0,0 +1,182 @@
+package com.zjun.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+/**
+ * RuleTileCache
+ *
+ * 刻度层的分块（tile）绘制缓存
+ *
+ * 思路：
+ *  - 刻度与数值只与刻度参数（缩放等级）有关，与当前值无关，但滑动时每帧都要重新绘制
+ *  - 把刻度层按固定宽度分块，每块绘制到一个Bitmap中缓存。滑动时只需平移、拼接可见的块
+ *  - 块的位置使用与最小值（00:00）的绝对距离，块索引为 floor(距离 / 块宽度)
+ *  - 缓存有内存上限，已满时淘汰最久未使用的块，并复用其Bitmap，稳定后不再创建对象
+ *  - 刻度参数变化时，调用{@link #clear()}使所有块失效
+ */
+final class RuleTileCache {
+
+    /**
+     * 默认块宽度
+     */
+    static final int DEFAULT_TILE_WIDTH = 256;
+    /**
+     * 默认内存上限：4MB
+     */
+    static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * 块绘制器
+     */
+    interface TileRenderer {
+        /**
+         * 绘制一块刻度层
+         * @param canvas    画布，x=0 对应 tileLeft，已填充背景色
+         * @param tileLeft  块左侧与最小值的绝对距离
+         * @param tileWidth 块宽度
+         */
+        void drawTile(Canvas canvas, double tileLeft, int tileWidth);
+    }
+
+    private final int mTileWidth;
+    private int mMaxBytes = DEFAULT_MAX_BYTES;
+    private int mTileHeight;
+
+    private long[] mKeys = new long[0];
+    private Bitmap[] mBitmaps = new Bitmap[0];
+    private boolean[] mValids = new boolean[0];
+    private long[] mLastUsed = new long[0];
+    private long mFrame;
+    private final Canvas mTileCanvas = new Canvas();
+
+    RuleTileCache(int tileWidth) {
+        mTileWidth = tileWidth;
+    }
+
+    /**
+     * 设置内存上限，会释放已有的块
+     */
+    void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        release();
+    }
+
+    /**
+     * 使所有块失效，保留Bitmap复用
+     */
+    void clear() {
+        for (int i = 0; i < mValids.length; i++) {
+            mValids[i] = false;
+        }
+    }
+
+    /**
+     * 释放所有块
+     */
+    void release() {
+        for (Bitmap bitmap : mBitmaps) {
+            if (bitmap != null) {
+                bitmap.recycle();
+            }
+        }
+        mKeys = new long[0];
+        mBitmaps = new Bitmap[0];
+        mValids = new boolean[0];
+        mLastUsed = new long[0];
+    }
+
+    /**
+     * 绘制可见的块，缓存中没有的块先绘制到Bitmap中
+     *
+     * @param canvas       画布，x=0 对应 leftDistance
+     * @param leftDistance 控件左侧与最小值的绝对距离
+     * @param width        绘制宽度
+     * @param height       绘制高度
+     * @param bgColor      背景色
+     * @param renderer     块绘制器
+     */
+    void draw(Canvas canvas, double leftDistance, int width, int height, int bgColor, TileRenderer renderer) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        final int tileWidth = mTileWidth;
+        final long firstTile = (long) Math.floor(leftDistance / tileWidth);
+        final long lastTile = (long) Math.floor((leftDistance + width) / tileWidth);
+        ensureSlots((int) (lastTile - firstTile + 1), height);
+        mFrame++;
+        for (long tile = firstTile; tile <= lastTile; tile++) {
+            int slot = slotOf(tile);
+            if (slot < 0) {
+                slot = obtainSlot();
+                Bitmap bitmap = mBitmaps[slot];
+                if (bitmap == null) {
+                    bitmap = Bitmap.createBitmap(tileWidth, height, Bitmap.Config.ARGB_8888);
+                    mBitmaps[slot] = bitmap;
+                }
+                bitmap.eraseColor(bgColor);
+                mTileCanvas.setBitmap(bitmap);
+                renderer.drawTile(mTileCanvas, (double) tile * tileWidth, tileWidth);
+                mTileCanvas.setBitmap(null);
+                mKeys[slot] = tile;
+                mValids[slot] = true;
+            }
+            mLastUsed[slot] = mFrame;
+            canvas.drawBitmap(mBitmaps[slot], (float) ((double) tile * tileWidth - leftDistance), 0, null);
+        }
+    }
+
+    private int slotOf(long tile) {
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mValids[i] && mKeys[i] == tile) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取空位：优先失效的位置，否则淘汰最久未使用的块
+     */
+    private int obtainSlot() {
+        int lruSlot = -1;
+        long lruFrame = Long.MAX_VALUE;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (!mValids[i]) {
+                return i;
+            }
+            if (mLastUsed[i] < lruFrame) {
+                lruFrame = mLastUsed[i];
+                lruSlot = i;
+            }
+        }
+        return lruSlot;
+    }
+
+    /**
+     * 根据内存上限计算块数量，至少要能容纳一屏的块
+     */
+    private void ensureSlots(int visibleTiles, int height) {
+        if (height != mTileHeight) {
+            release();
+            mTileHeight = height;
+        }
+        final int tileBytes = mTileWidth * height * 4;
+        final int count = Math.max(visibleTiles + 1, mMaxBytes / tileBytes);
+        if (mKeys.length >= count) {
+            return;
+        }
+        final long[] keys = new long[count];
+        final Bitmap[] bitmaps = new Bitmap[count];
+        final boolean[] valids = new boolean[count];
+        final long[] lastUsed = new long[count];
+        System.arraycopy(mKeys, 0, keys, 0, mKeys.length);
+        System.arraycopy(mBitmaps, 0, bitmaps, 0, mBitmaps.length);
+        System.arraycopy(mValids, 0, valids, 0, mValids.length);
+        System.arraycopy(mLastUsed, 0, lastUsed, 0, mLastUsed.length);
+        mKeys = keys;
+        mBitmaps = bitmaps;
+        mValids = valids;
+        mLastUsed = lastUsed;
+    }
+}
@@ -9,14 +9,14 @@ import android.graphics.Paint;
 import android.support.annotation.Nullable;
 import android.text.TextPaint;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.Scroller;
+
+import java.util.concurrent.Executor;
 
 /**
  * GradationView
@@ -28,8 +28,15 @@ import android.widget.Scroller;
  *     - 根据中间指针位置的数值，来计算最小值位置与中间指针位置的距离
  *     - 为了绘制性能，只绘制控件宽度范围内的刻度。但不出现数值突变（两侧刻度出现突然显示或不显示），两侧各增加2个单位
  *  3. 滑动时，通过移动最小位置与中间指针位置的距离，逆向推算当前刻度值
- *  4. 滑动停止后，自动调整到最近的刻度：使用滑动器Scroller，需要计算出最终要抵达的位置
+ *  4. 滑动停止后，自动调整到最近的刻度：使用滑动器{@link RuleScroller}，需要计算出最终要抵达的位置。惯性滑动到两端时越界回弹
  *  5. 惯性滑动：使用速度跟踪器VelocityTracker
+ *  6. 数值文字及其宽度，放入有上限的缓存中，来回滑动时不再格式化字符串与测量文字
+ *  7. 长、短刻度分别放入可复用的float数组，各调用一次 Canvas.drawLines，不再每条刻度都修改画笔
+ *  8. 可选的刻度层分块缓存{@link RuleTileCache}：刻度只与刻度参数有关，滑动时只平移、拼接已缓存的块
+ *  9. 数值范围很大时（如10^9个刻度），总距离超出int与float的精度。当前距离相对于一个原点{@link #mOriginDistance}，
+ *     距离过大或停止时，把原点移到当前数值（rebase）。总距离只用double表示，每帧的计算量只与可见刻度数有关
+ *  10. 可选的刻度映射{@link ScaleMapping}：线性、对数、分段线性，数值跨越多个数量级时不会刻度过多或低端精度过粗。
+ *     映射转换为若干段等间距网格，数值与距离的换算为 O(log 段数)，仍只绘制可见范围内的刻度
  *
  * Author: Ralap
  * Description:
@@ -37,6 +44,23 @@ import android.widget.Scroller;
  */
 public class RuleView extends View {
     private static final boolean LOG_ENABLE = BuildConfig.DEBUG;
+    private static final String TAG = "GradationView";
+    /**
+     * 刻度数值缓存的容量，足够容纳来回滑动时的数值
+     */
+    private static final int LABEL_CACHE_SIZE = 64;
+    /**
+     * 吸附到刻度的动画时长，单位：ms
+     */
+    private static final int SNAP_DURATION = 150;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：dp
+     */
+    private static final int OVER_SCROLL_DP = 24;
+    /**
+     * 距离值超过此值时，把原点移到当前数值，保证float精度
+     */
+    private static final float REBASE_DISTANCE = 1 << 12;
 
     /**
      * 滑动阈值
@@ -124,33 +148,61 @@ public class RuleView extends View {
     private float gradationNumberGap;
 
     /**
-     * 最小数值，放大10倍：minValue * 10
+     * 数值的小数位数，绘制数值放大 10^valueScale 倍
+     */
+    private int valueScale;
+
+    /**
+     * 最小数值，定点数：minValue * 10^valueScale
+     */
+    private long mMinNumber;
+    /**
+     * 最大数值，定点数：maxValue * 10^valueScale
      */
-    private int mMinNumber;
+    private long mMaxNumber;
     /**
-     * 最大数值，放大10倍：maxValue * 10
+     * 当前数值，定点数
      */
-    private int mMaxNumber;
+    private long mCurrentNumber;
     /**
-     * 当前数值
+     * 最大数值与最小数值间的距离：(mMaxNumber - mMinNumber) / mNumberUnit * gradationGap。范围很大时超出float精度，使用double
      */
-    private int mCurrentNumber;
+    private double mNumberRangeDistance;
     /**
-     * 最大数值与最小数值间的距离：(mMaxNumber - mMinNumber) / mNumberUnit * gradationGap
+     * 刻度数值最小单位，定点数：gradationUnit * 10^valueScale
      */
-    private float mNumberRangeDistance;
+    private long mNumberUnit;
     /**
-     * 刻度数值最小单位：gradationUnit * 10
+     * 原点与最小值的距离。原点在刻度上，距离过大或停止时移到当前数值
      */
-    private int mNumberUnit;
+    private double mOriginDistance;
     /**
-     * 当前数值与最小值的距离：(mCurrentNumber - minValue) / mNumberUnit * gradationGap
+     * 当前位置与原点的距离，只在原点附近，float精度足够
      */
     private float mCurrentDistance;
     /**
-     * 控件宽度所占有的数值范围：mWidth / gradationGap * mNumberUnit
+     * 滑动动画上一帧的位置、开始时与最小值的距离。滑动器只提供相对于开始位置的偏移，不受原点移动的影响
      */
-    private int mWidthRangeNumber;
+    private int mLastScrollX;
+    private double mScrollStartDistance;
+    /**
+     * 刻度布局：数值与距离的换算、可见刻度的计算
+     */
+    private final SegmentedLayout mLayout = new SegmentedLayout();
+    /**
+     * 刻度映射，默认线性
+     */
+    private ScaleMapping mScaleMapping = ScaleMapping.linear();
+    /**
+     * 刻度层的分块绘制缓存，null 表示不使用
+     */
+    private RuleTileCache mTileCache;
+    private RuleTileCache.TileRenderer mTileRenderer;
+    /**
+     * 绘制统计，null 表示未开启
+     */
+    private RuleMetrics mMetrics;
+    private RuleMetrics.OnFrameMetricsListener mMetricsListener;
 
     /**
      * 普通画笔
@@ -160,10 +212,34 @@ public class RuleView extends View {
      * 文字画笔
      */
     private TextPaint mTextPaint;
+    /**
+     * 批量绘制：短刻度（含基准线）、长刻度，每类只调用一次 drawLines
+     */
+    private final LineBatch mShortLines = new LineBatch();
+    private final LineBatch mLongLines = new LineBatch();
+    /**
+     * 刻度数值缓存：数值文字及宽度
+     */
+    private final LabelCache mLabelCache = new LabelCache(LABEL_CACHE_SIZE);
     /**
      * 滑动器
      */
-    private Scroller mScroller;
+    private RuleScroller mScroller;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：px
+     */
+    private int mOverScrollDistance;
+    /**
+     * 吸附规则：最近的刻度
+     */
+    private final RuleScroller.Snapper mSnapper = new RuleScroller.Snapper() {
+        @Override
+        public int snap(int x) {
+            // 滑动器的位置相对于开始位置
+            final double distance = mScrollStartDistance + x;
+            return clampToInt(mLayout.distanceOf(mLayout.roundValueAt(distance)) - mScrollStartDistance);
+        }
+    };
     /**
      * 速度跟踪器
      */
@@ -178,6 +254,28 @@ public class RuleView extends View {
     private boolean isMoved;
 
     private OnValueChangedListener mValueChangedListener;
+    private OnValueSettledListener mValueSettledListener;
+    /**
+     * 值变化的回调合并到下一帧
+     */
+    private final FrameDispatcher mValueDispatcher = new FrameDispatcher(new Runnable() {
+        @Override
+        public void run() {
+            flushValueChanged();
+        }
+    });
+    /**
+     * 上次回调的值，未回调时为NaN
+     */
+    private float mDispatchedValue = Float.NaN;
+    /**
+     * 本次手势中已回调停止的值，按下时清除，避免惯性滑动与回弹各回调一次
+     */
+    private float mSettledValue = Float.NaN;
+    /**
+     * 在Executor中回调值变化，null 表示在主线程中回调。值以 Float.floatToIntBits 传递
+     */
+    private LatestValueDispatcher mAsyncValueDispatcher;
 
     /**
      * 当前值变化监听器
@@ -186,6 +284,13 @@ public class RuleView extends View {
         void onValueChanged(float value);
     }
 
+    /**
+     * 值停止变化监听器：惯性滑动或吸附到刻度结束时回调一次
+     */
+    public interface OnValueSettledListener {
+        void onValueSettled(float value);
+    }
+
 
     public RuleView(Context context) {
         this(context, null);
@@ -227,9 +332,14 @@ public class RuleView extends View {
         currentValue = ta.getFloat(R.styleable.RuleView_gv_currentValue, 50f);
         gradationUnit = ta.getFloat(R.styleable.RuleView_gv_gradationUnit, .1f);
         numberPerCount = ta.getInt(R.styleable.RuleView_gv_numberPerCount, 10);
+        valueScale = ta.getInt(R.styleable.RuleView_gv_valueScale, 1);
         gradationGap = ta.getDimension(R.styleable.RuleView_gv_gradationGap, dp2px(10));
         gradationNumberGap = ta.getDimension(R.styleable.RuleView_gv_gradationNumberGap, dp2px(8));
+        final boolean renderCacheEnabled = ta.getBoolean(R.styleable.RuleView_zjun_renderCacheEnabled, false);
         ta.recycle();
+        if (renderCacheEnabled) {
+            setRenderCacheEnabled(true);
+        }
     }
 
     /**
@@ -242,25 +352,78 @@ public class RuleView extends View {
         mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
         mTextPaint.setTextSize(textSize);
         mTextPaint.setColor(textColor);
+        updateExpendUnits();
 
-        mScroller = new Scroller(context);
+        mScroller = new RuleScroller(context, new RuleScroller.Callback() {
+            @Override
+            public void onScrollFrame(int currX, boolean finished) {
+                onScrollFrame(currX, finished);
+            }
+        });
+        mOverScrollDistance = dp2px(OVER_SCROLL_DP);
     }
 
     /**
      * 把真实数值转换成绘制数值
-     * 为了防止float的精度丢失，把minValue、maxValue、currentValue、gradationUnit都放大10倍
+     * 为了防止float的精度丢失，把minValue、maxValue、currentValue、gradationUnit都放大 10^valueScale 倍，转为定点数
      */
     private void convertValue2Number() {
-        mMinNumber = (int) (minValue * 10);
-        mMaxNumber = (int) (maxValue * 10);
-        mCurrentNumber = (int) (currentValue * 10);
-        mNumberUnit = (int) (gradationUnit * 10);
-        mCurrentDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        mNumberRangeDistance = (mMaxNumber - mMinNumber) / mNumberUnit * gradationGap;
-        if (mWidth != 0) {
-            // 初始化时，在onMeasure()里计算
-            mWidthRangeNumber = (int) (mWidth / gradationGap * mNumberUnit);
+        mMinNumber = FixedPoint.toFixed(minValue, valueScale);
+        mMaxNumber = FixedPoint.toFixed(maxValue, valueScale);
+        mCurrentNumber = FixedPoint.toFixed(currentValue, valueScale);
+        mNumberUnit = FixedPoint.toFixed(gradationUnit, valueScale);
+        if (mNumberUnit <= 0) {
+            throw new IllegalArgumentException(String.format("The gradationUnit of %f is too small for valueScale %d",
+                    gradationUnit, valueScale));
         }
+        mScaleMapping.build(mLayout, mMinNumber, mMaxNumber, mNumberUnit, valueScale, gradationGap, numberPerCount);
+        updateExpendUnits();
+        mNumberRangeDistance = mLayout.distanceOf(mMaxNumber);
+        moveOrigin(mCurrentNumber);
+    }
+
+    /**
+     * 两侧扩展的刻度数：2个单位，再加上最宽数值的半宽，避免数值在绘制区域或缓存块的边缘被截断
+     * 最宽的数值取两端的值，及最大值前一个长刻度的值（小数位数可能更多）
+     */
+    private void updateExpendUnits() {
+        if (mTextPaint == null) {
+            // 构造中，创建画笔后再计算
+            return;
+        }
+        final float maxWidth = Math.max(
+                Math.max(mTextPaint.measureText(FixedPoint.format(mMinNumber, valueScale)),
+                        mTextPaint.measureText(FixedPoint.format(mMaxNumber, valueScale))),
+                mTextPaint.measureText(FixedPoint.format(mMaxNumber - mNumberUnit * numberPerCount, valueScale)));
+        mLayout.setExpendUnits(2 + (int) Math.ceil(maxWidth * .5f / gradationGap));
+    }
+
+    /**
+     * 把原点移到指定数值，当前位置也移到原点
+     */
+    private void moveOrigin(long originNumber) {
+        mOriginDistance = mLayout.distanceOf(originNumber);
+        mCurrentDistance = 0;
+    }
+
+    /**
+     * 把原点移到指定数值，当前位置不变
+     */
+    private void rebase(long originNumber) {
+        final double distance = currentDistance();
+        mOriginDistance = mLayout.distanceOf(originNumber);
+        mCurrentDistance = (float) (distance - mOriginDistance);
+    }
+
+    /**
+     * 当前位置与最小值的距离
+     */
+    private double currentDistance() {
+        return mOriginDistance + mCurrentDistance;
+    }
+
+    private static int clampToInt(double value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, Math.round(value)));
     }
 
 
@@ -269,9 +432,6 @@ public class RuleView extends View {
         mWidth = calculateSize(true, widthMeasureSpec);
         mHeight = calculateSize(false, heightMeasureSpec);
         mHalfWidth = mWidth >> 1;
-        if (mWidthRangeNumber == 0) {
-            mWidthRangeNumber = (int) (mWidth / gradationGap * mNumberUnit);
-        }
         setMeasuredDimension(mWidth, mHeight);
     }
 
@@ -307,7 +467,9 @@ public class RuleView extends View {
             default:
 
         }
-        logD("isWidth=%b, mode=%d, size=%d, realSize=%d", isWidth, mode, size, realSize);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "isWidth=%b, mode=%d, size=%d, realSize=%d", isWidth ? 1 : 0, mode, size, realSize);
+        }
         return realSize;
     }
 
@@ -317,14 +479,18 @@ public class RuleView extends View {
         final int action = event.getAction();
         final int x = (int) event.getX();
         final int y = (int) event.getY();
-        logD("onTouchEvent: action=%d", action);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "onTouchEvent: action=%d", action);
+        }
         if (mVelocityTracker == null) {
             mVelocityTracker = VelocityTracker.obtain();
         }
         mVelocityTracker.addMovement(event);
         switch (action) {
             case MotionEvent.ACTION_DOWN:
-                mScroller.forceFinished(true);
+                mScroller.abort();
+                // 新的手势：停止回调一次，即使停在与上次相同的值上
+                mSettledValue = Float.NaN;
                 mDownX = x;
                 isMoved = false;
                 break;
@@ -352,11 +518,13 @@ public class RuleView extends View {
                 // 达到速度则惯性滑动，否则缓慢滑动到刻度
                 if (Math.abs(xVelocity) >= MIN_FLING_VELOCITY) {
                     // 速度具有方向性，需要取反
-                    mScroller.fling((int)mCurrentDistance, 0, -xVelocity, 0,
-                            0, (int)mNumberRangeDistance, 0, 0);
+                    if (mMetrics != null) {
+                        mMetrics.onFlingStart();
+                    }
+                    flingToGradation(-xVelocity);
                     invalidate();
                 } else {
-                    scrollToGradation();
+                    snapToGradation();
                 }
                 break;
             default:
@@ -372,112 +540,224 @@ public class RuleView extends View {
      */
     private void calculateValue() {
         // 限定范围：在最小值与最大值之间
-        mCurrentDistance = Math.min(Math.max(mCurrentDistance, 0), mNumberRangeDistance);
-        mCurrentNumber = mMinNumber + (int)(mCurrentDistance / gradationGap) * mNumberUnit;
-        currentValue = mCurrentNumber / 10f;
-        logD("calculateValue: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
-                mCurrentDistance, mCurrentNumber, currentValue);
-        if (mValueChangedListener != null) {
-            mValueChangedListener.onValueChanged(currentValue);
-        }
+        final double distance = Math.min(Math.max(currentDistance(), 0), mNumberRangeDistance);
+        mCurrentDistance = (float) (distance - mOriginDistance);
+        updateValue();
+        dispatchValueChanged();
         invalidate();
     }
 
+    /**
+     * 根据distance距离计算数值，不限定距离：越界回弹时数值为端点值
+     */
+    private void updateValue() {
+        mCurrentNumber = mLayout.floorValueAt(currentDistance());
+        currentValue = FixedPoint.toFloat(mCurrentNumber, valueScale);
+        // 距离过大，移动原点
+        if (Math.abs(mCurrentDistance) > REBASE_DISTANCE) {
+            rebase(mCurrentNumber);
+        }
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "updateValue: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
+                    mCurrentDistance, mCurrentNumber, currentValue);
+        }
+    }
+
+    /**
+     * 动画滑动到最近的刻度线上
+     */
+    private void snapToGradation() {
+        mScrollStartDistance = currentDistance();
+        final int dx = mSnapper.snap(0);
+        if (dx == 0) {
+            scrollToGradation();
+        } else {
+            mLastScrollX = 0;
+            mScroller.startScroll(0, dx, SNAP_DURATION);
+        }
+    }
+
     /**
      * 滑动到最近的刻度线上
      */
     private void scrollToGradation() {
-        mCurrentNumber = mMinNumber + Math.round(mCurrentDistance / gradationGap) * mNumberUnit;
-        mCurrentNumber = Math.min(Math.max(mCurrentNumber, mMinNumber), mMaxNumber);
-        mCurrentDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        currentValue = mCurrentNumber / 10f;
-        logD("scrollToGradation: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
-                mCurrentDistance, mCurrentNumber, currentValue);
-        if (mValueChangedListener != null) {
-            mValueChangedListener.onValueChanged(currentValue);
+        mCurrentNumber = mLayout.roundValueAt(currentDistance());
+        // 原点移到刻度上，当前距离为0
+        moveOrigin(mCurrentNumber);
+        currentValue = FixedPoint.toFloat(mCurrentNumber, valueScale);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "scrollToGradation: mCurrentDistance=%f, mCurrentNumber=%d, currentValue=%f",
+                    mCurrentDistance, mCurrentNumber, currentValue);
         }
+        dispatchValueSettled();
         invalidate();
     }
 
-    @Override
-    public void computeScroll() {
-        if (mScroller.computeScrollOffset()) {
-            if (mScroller.getCurrX() != mScroller.getFinalX()) {
-                mCurrentDistance = mScroller.getCurrX();
-                calculateValue();
-            } else {
-                scrollToGradation();
-            }
+    /**
+     * 惯性滑动：停止位置调整到最近的刻度上，整条轨迹都向刻度减速，结束时不再跳到刻度上。到两端时越界回弹
+     */
+    private void flingToGradation(int velocityX) {
+        // 滑动器从0开始，范围为当前位置到两端的距离
+        mScrollStartDistance = currentDistance();
+        mLastScrollX = 0;
+        mScroller.fling(0, velocityX, clampToInt(-mScrollStartDistance),
+                clampToInt(mNumberRangeDistance - mScrollStartDistance), mOverScrollDistance, mSnapper);
+    }
+
+    /**
+     * 滑动动画的每一帧：更新一次位置，最多回调一次监听，请求一次重绘
+     */
+    private void onScrollFrame(int currX, boolean finished) {
+        if (mMetrics != null) {
+            mMetrics.onFlingFrame();
+        }
+        mCurrentDistance += currX - mLastScrollX;
+        mLastScrollX = currX;
+        if (finished) {
+            // 终点已在刻度上，只修正小于1px的误差
+            scrollToGradation();
+            return;
         }
+        updateValue();
+        flushValueChanged();
+        invalidate();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        final RuleMetrics metrics = mMetrics;
+        final long startNanos = metrics != null ? metrics.beginFrame("RuleView#onDraw") : 0;
         // 1 绘制背景色
         canvas.drawColor(bgColor);
-        // 2 绘制刻度、数字
-        drawGradation(canvas);
+        // 2 绘制刻度、数字。使用缓存时，只拼接可见的块
+        if (mTileCache != null) {
+            mTileCache.draw(canvas, currentDistance() - mHalfWidth, mWidth, mHeight, bgColor, mTileRenderer);
+        } else {
+            drawGradation(canvas, currentDistance() - mHalfWidth, mWidth);
+        }
         // 3 绘制指针
         drawIndicator(canvas);
+        if (metrics != null) {
+            metrics.endFrame(startNanos);
+            if (mMetricsListener != null) {
+                mMetricsListener.onFrameMetrics(metrics);
+            }
+        }
     }
 
     /**
      * 绘制刻度
+     *
+     * @param leftDistance 画布 x=0 处与最小值的距离
+     * @param width        绘制宽度
      */
-    private void drawGradation(Canvas canvas) {
-        // 1 顶部基准线
-        mPaint.setColor(gradationColor);
-        mPaint.setStrokeWidth(shortLineWidth);
-        canvas.drawLine(0, shortLineWidth * .5f, mWidth, 0, mPaint);
-
-        /*
-         2 左侧刻度
-         2.1 计算左侧开始绘制的刻度
-          */
-        int startNum = ((int) mCurrentDistance - mHalfWidth) / (int) gradationGap * mNumberUnit + mMinNumber;
-        // 扩展2个单位
-        final int expendUnit = mNumberUnit << 1;
-        // 左侧扩展
-        startNum -= expendUnit;
-        if (startNum < mMinNumber) {
-            startNum = mMinNumber;
-        }
-        // 右侧扩展
-        int rightMaxNum = (startNum + expendUnit) + mWidthRangeNumber + expendUnit;
-        if (rightMaxNum > mMaxNumber) {
-            rightMaxNum = mMaxNumber;
-        }
-        // 当前绘制刻度对应控件左侧的位置
-        float distance = mHalfWidth - (mCurrentDistance - (startNum - mMinNumber) / mNumberUnit * gradationGap);
-        final int perUnitCount = mNumberUnit * numberPerCount;
-        logD("drawGradation: startNum=%d, rightNum=%d, perUnitCount=%d",
-                startNum, rightMaxNum, perUnitCount);
-        while (startNum <= rightMaxNum) {
-            logD("drawGradation: startNum=%d", startNum);
-            if (startNum % perUnitCount == 0) {
+    private void drawGradation(Canvas canvas, double leftDistance, int width) {
+        // 1 顶部基准线：与短刻度的样式一样，放在同一批
+        final LineBatch shortLines = mShortLines;
+        final LineBatch longLines = mLongLines;
+        shortLines.reset();
+        longLines.reset();
+        shortLines.add(0, shortLineWidth * .5f, width, 0);
+
+        // 2 可见范围内的刻度：由布局计算位置与类型
+        final SegmentedLayout layout = mLayout;
+        final int count = layout.layout(leftDistance, width);
+        if (LOG_ENABLE) {
+            RuleLog.d(TAG, "drawGradation: leftDistance=%f, count=%d", leftDistance, count);
+        }
+        int labels = 0;
+        for (int i = 0; i < count; i++) {
+            final float distance = layout.positionAt(i);
+            if (layout.typeAt(i) == RuleLayout.TICK_LONG) {
                 // 长刻度：刻度宽度为短刻度的2倍
-                mPaint.setStrokeWidth(longLineWidth);
-                canvas.drawLine(distance, 0, distance, longGradationLen, mPaint);
-
-                // 数值
-                float fNum = startNum / 10f;
-                String text = Float.toString(fNum);
-                logD("drawGradation: text=%s", text);
-                if (text.endsWith(".0")) {
-                    text = text.substring(0, text.length() - 2);
+                longLines.add(distance, 0, distance, longGradationLen);
+                if (!layout.hasLabelAt(i)) {
+                    // 对数映射中，只有部分长刻度显示数值
+                    continue;
                 }
-                final float textWidth = mTextPaint.measureText(text);
-                canvas.drawText(text, distance - textWidth * .5f, longGradationLen + gradationNumberGap + textSize, mTextPaint);
+                labels++;
+
+                // 数值：优先从缓存中取
+                final long number = layout.valueAt(i);
+                int labelIndex = mLabelCache.indexOf(number);
+                if (labelIndex < 0) {
+                    // 定点数直接格式化，没有float的舍入误差，并去掉小数末尾的0
+                    final String text = FixedPoint.format(number, valueScale);
+                    if (LOG_ENABLE) {
+                        RuleLog.d(TAG, "drawGradation: text=%s", text);
+                    }
+                    labelIndex = mLabelCache.put(number, text, mTextPaint.measureText(text));
+                }
+                final float textWidth = mLabelCache.widthAt(labelIndex);
+                canvas.drawText(mLabelCache.textAt(labelIndex), distance - textWidth * .5f,
+                        longGradationLen + gradationNumberGap + textSize, mTextPaint);
             } else {
                 // 短刻度
-                mPaint.setStrokeWidth(shortLineWidth);
-                canvas.drawLine(distance, 0, distance, shortGradationLen, mPaint);
+                shortLines.add(distance, 0, distance, shortGradationLen);
             }
-            startNum += mNumberUnit;
-            distance += gradationGap;
+        }
+
+        // 3 批量绘制刻度，每类只修改一次画笔
+        mPaint.setColor(gradationColor);
+        mPaint.setStrokeWidth(shortLineWidth);
+        shortLines.draw(canvas, mPaint);
+        mPaint.setStrokeWidth(longLineWidth);
+        longLines.draw(canvas, mPaint);
+        if (mMetrics != null) {
+            // 基准线不算刻度
+            mMetrics.addTicks(shortLines.size() - 1 + longLines.size());
+            mMetrics.addLabels(labels);
+        }
+    }
+
+    /**
+     * 请求回调值变化：合并到下一帧，一帧最多回调一次
+     */
+    private void dispatchValueChanged() {
+        if (mValueChangedListener != null) {
+            mValueDispatcher.schedule();
         }
     }
 
+    /**
+     * 立即回调值变化，值未变化时不回调。开启统计时记录回调耗时
+     */
+    private void flushValueChanged() {
+        mValueDispatcher.cancel();
+        if (mValueChangedListener == null || currentValue == mDispatchedValue) {
+            return;
+        }
+        mDispatchedValue = currentValue;
+        final RuleMetrics metrics = mMetrics;
+        if (metrics == null) {
+            deliverValueChanged(currentValue);
+            return;
+        }
+        final long startNanos = metrics.beginDispatch("RuleView#onValueChanged");
+        deliverValueChanged(currentValue);
+        metrics.endDispatch(startNanos);
+    }
+
+    private void deliverValueChanged(float value) {
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.post(Float.floatToIntBits(value));
+        } else {
+            mValueChangedListener.onValueChanged(value);
+        }
+    }
+
+    /**
+     * 滑动停止：先回调未回调的变化，再回调停止。每次手势只回调一次
+     */
+    private void dispatchValueSettled() {
+        flushValueChanged();
+        if (mValueSettledListener == null || currentValue == mSettledValue) {
+            return;
+        }
+        mSettledValue = currentValue;
+        mValueSettledListener.onValueSettled(currentValue);
+    }
+
     /**
      * 绘制指针
      */
@@ -500,13 +780,6 @@ public class RuleView extends View {
         return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getResources().getDisplayMetrics());
     }
 
-    @SuppressWarnings("all")
-    private void logD(String format, Object... args) {
-        if (LOG_ENABLE) {
-            Log.d("GradationView", String.format("zjun@" + format, args));
-        }
-    }
-
     /**
      * 设置新值
      */
@@ -515,18 +788,22 @@ public class RuleView extends View {
             throw new IllegalArgumentException(String.format("The currentValue of %f is out of range: [%f, %f]",
                     currentValue, minValue, maxValue));
         }
-        if (!mScroller.isFinished()) {
-            mScroller.forceFinished(true);
-        }
+        mScroller.abort();
         this.currentValue = currentValue;
-        mCurrentNumber = (int) (this.currentValue * 10);
-        final float newDistance = (mCurrentNumber - mMinNumber) / mNumberUnit * gradationGap;
-        final int dx = (int) (newDistance - mCurrentDistance);
+        final long number = FixedPoint.toFixed(this.currentValue, valueScale);
+        mScrollStartDistance = currentDistance();
+        final double dx = mLayout.distanceOf(number) - mScrollStartDistance;
+        if (Math.abs(dx) > Integer.MAX_VALUE) {
+            // 距离太远，直接跳到目标值
+            moveOrigin(number);
+            scrollToGradation();
+            return;
+        }
         // 最大2000ms
-        final int duration = dx * 2000 / (int)mNumberRangeDistance;
+        final int duration = mNumberRangeDistance > 0 ? (int) (Math.abs(dx) * 2000 / mNumberRangeDistance) : 0;
         // 滑动到目标值
-        mScroller.startScroll((int) mCurrentDistance, 0, dx, duration);
-        postInvalidate();
+        mLastScrollX = 0;
+        mScroller.startScroll(0, (int) Math.round(dx), duration);
     }
 
     public float getMinValue() {
@@ -558,22 +835,199 @@ public class RuleView extends View {
             throw new IllegalArgumentException(String.format("The given values are invalid, check firstly: " +
                     "minValue=%f, maxValue=%f, curValue=%s", minValue, maxValue, curValue));
         }
-        if (!mScroller.isFinished()) {
-            mScroller.forceFinished(true);
-        }
+        mScroller.abort();
         this.minValue = minValue;
         this.maxValue = maxValue;
         this.currentValue = curValue;
         this.gradationUnit = unit;
         this.numberPerCount = perCount;
         convertValue2Number();
-        if (mValueChangedListener != null) {
-            mValueChangedListener.onValueChanged(currentValue);
+        mLabelCache.clear();
+        clearRenderCache();
+        dispatchValueChanged();
+        postInvalidate();
+    }
+
+    /**
+     * 设置数值的小数位数，刻度与数值都按此精度使用定点数计算，默认为1
+     * 如刻度单位为0.05时，需要设置为2
+     *
+     * @param scale 小数位数：[0, 9]
+     */
+    public void setValueScale(int scale) {
+        // 校验范围
+        FixedPoint.factorOf(scale);
+        mScroller.abort();
+        this.valueScale = scale;
+        convertValue2Number();
+        mLabelCache.clear();
+        clearRenderCache();
+        postInvalidate();
+    }
+
+    public int getValueScale() {
+        return valueScale;
+    }
+
+    /**
+     * 设置刻度映射，默认为{@link ScaleMapping#linear()}
+     * 数值跨越多个数量级时，可使用{@link ScaleMapping#log10(float)}或{@link ScaleMapping#piecewise(float[], float[])}
+     */
+    public void setScaleMapping(ScaleMapping mapping) {
+        if (mapping == null) {
+            throw new IllegalArgumentException("The mapping must not be null");
+        }
+        mScroller.abort();
+        final ScaleMapping oldMapping = mScaleMapping;
+        mScaleMapping = mapping;
+        try {
+            convertValue2Number();
+        } catch (IllegalArgumentException e) {
+            // 如对数映射时最小值不大于0：保持原来的映射
+            mScaleMapping = oldMapping;
+            convertValue2Number();
+            throw e;
+        }
+        clearRenderCache();
+        dispatchValueChanged();
+        postInvalidate();
+    }
+
+    public ScaleMapping getScaleMapping() {
+        return mScaleMapping;
+    }
+
+    /**
+     * 设置刻度字体大小
+     *
+     * @param textSize 字体大小，单位：px
+     */
+    public void setTextSize(float textSize) {
+        this.textSize = textSize;
+        mTextPaint.setTextSize(textSize);
+        // 宽度已变化
+        updateExpendUnits();
+        mLabelCache.clear();
+        clearRenderCache();
+        postInvalidate();
+    }
+
+    /**
+     * 设置是否使用刻度层的分块绘制缓存
+     * 开启后，滑动时只平移、拼接已缓存的刻度块，不再每帧重新绘制刻度与数值，但会占用一定内存（默认上限4MB）
+     */
+    public void setRenderCacheEnabled(boolean enabled) {
+        if (enabled == (mTileCache != null)) {
+            return;
+        }
+        if (enabled) {
+            mTileCache = new RuleTileCache(RuleTileCache.DEFAULT_TILE_WIDTH);
+            mTileRenderer = new RuleTileCache.TileRenderer() {
+                @Override
+                public void drawTile(Canvas canvas, double tileLeft, int tileWidth) {
+                    drawGradation(canvas, tileLeft, tileWidth);
+                }
+            };
+        } else {
+            mTileCache.release();
+            mTileCache = null;
+            mTileRenderer = null;
         }
         postInvalidate();
     }
 
+    /**
+     * 设置刻度层缓存的内存上限
+     * @param maxBytes 内存上限，单位：byte。至少会缓存一屏的块
+     */
+    public void setRenderCacheMaxBytes(int maxBytes) {
+        if (mTileCache != null) {
+            mTileCache.setMaxBytes(maxBytes);
+            postInvalidate();
+        }
+    }
+
+    private void clearRenderCache() {
+        if (mTileCache != null) {
+            mTileCache.clear();
+        }
+    }
+
+    /**
+     * 设置是否开启绘制统计，未开启时不产生开销
+     * @see RuleMetrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled != (mMetrics != null)) {
+            mMetrics = enabled ? new RuleMetrics() : null;
+        }
+    }
+
+    /**
+     * 获取绘制统计
+     * @return 未开启时返回null
+     */
+    public RuleMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 设置每帧的统计监听，开启统计后才会回调
+     */
+    public void setOnFrameMetricsListener(RuleMetrics.OnFrameMetricsListener listener) {
+        this.mMetricsListener = listener;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScroller.abort();
+        mValueDispatcher.cancel();
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.cancel();
+        }
+        if (mTileCache != null) {
+            mTileCache.release();
+        }
+    }
+
+    /**
+     * 设置值变化监听，滑动时每帧最多回调一次，值不变时不回调
+     */
     public void setOnValueChangedListener(OnValueChangedListener listener) {
+        setOnValueChangedListener(listener, null);
+    }
+
+    /**
+     * 设置值变化监听事件，在指定的Executor中回调。适用于较重的操作，如查询数据库
+     *
+     * 只回调最新的值：回调未执行完时，期间的中间值直接丢弃，不会排队；主线程不会等待回调。
+     * 同一时间最多执行一个回调。与{@link OnValueSettledListener}（主线程）之间的先后顺序不保证
+     *
+     * @param listener 监听回调
+     * @param executor 回调所在的Executor，其 execute() 不应阻塞。为 null 时在主线程中回调
+     */
+    public void setOnValueChangedListener(final OnValueChangedListener listener, @Nullable Executor executor) {
         this.mValueChangedListener = listener;
+        if (mAsyncValueDispatcher != null) {
+            mAsyncValueDispatcher.cancel();
+        }
+        if (listener == null || executor == null) {
+            mAsyncValueDispatcher = null;
+            return;
+        }
+        mAsyncValueDispatcher = new LatestValueDispatcher(executor, new LatestValueDispatcher.Consumer() {
+            @Override
+            public void accept(int value) {
+                listener.onValueChanged(Float.intBitsToFloat(value));
+            }
+        });
+    }
+
+    /**
+     * 设置值停止变化监听，惯性滑动或吸附到刻度结束时回调一次
+     */
+    public void setOnValueSettledListener(OnValueSettledListener listener) {
+        this.mValueSettledListener = listener;
     }
 }
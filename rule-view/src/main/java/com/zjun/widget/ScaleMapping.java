@@ -0,0 +1,193 @@
+package com.zjun.widget;
+
+import java.util.Arrays;
+
+/**
+ * ScaleMapping
+ *
+ * {@link RuleView}的刻度映射：数值与距离的换算、吸附的刻度、刻度的生成。可选线性、对数、分段线性
+ *
+ * 思路：
+ *  - 线性的刻度间距在数值跨越多个数量级时（如 0.1 ~ 100000），要么刻度数以百万计，要么低端的精度太粗
+ *  - 所有映射都转换为若干段等间距网格{@link SegmentedLayout}：每段内仍是线性的，查找与绘制只与段数的对数、可见刻度数有关
+ *    - 线性：一段，与原来的网格相同
+ *    - 对数：每个数量级 [10^k, 10^(k+1)] 宽度相同，按尾数分为9段 [m * 10^k, (m + 1) * 10^k]，
+ *      段的端点严格位于 log10 的位置，段内线性插值。刻度取 10^k 的 1/10、1/5、1/2 或 1 倍中，间距不小于刻度间距的最小值；
+ *      尾数为整数处为长刻度，尾数为 1、2、5 处显示数值
+ *    - 分段线性：给定分界点与各区间的刻度单位，每个刻度的间距相同，区间内从区间起点开始每 numberPerCount 个刻度一个长刻度
+ *  - 映射只保存参数，与数值范围无关，可在多个控件间共享
+ */
+public abstract class ScaleMapping {
+
+    private static final ScaleMapping LINEAR = new Linear();
+
+    ScaleMapping() {
+    }
+
+    /**
+     * 线性映射：相邻刻度的数值差为 gradationUnit，间距为 gradationGap。默认的映射
+     */
+    public static ScaleMapping linear() {
+        return LINEAR;
+    }
+
+    /**
+     * 对数映射：每个数量级的宽度相同，要求最小值大于0
+     * 刻度的最小数值差仍为 gradationUnit，最小间距仍为 gradationGap
+     *
+     * @param decadeWidth 每个数量级的宽度，单位：px
+     */
+    public static ScaleMapping log10(float decadeWidth) {
+        if (!(decadeWidth > 0)) {
+            throw new IllegalArgumentException(String.format("The decadeWidth(%f) must be positive", decadeWidth));
+        }
+        return new Log10(decadeWidth);
+    }
+
+    /**
+     * 分段线性映射：区间 [breakpoints[i], breakpoints[i + 1]] 内相邻刻度的数值差为 units[i]，间距为 gradationGap。
+     * 第一个区间向下、最后一个区间向上延伸到数值范围的两端
+     *
+     * @param breakpoints 分界点，严格升序，至少2个
+     * @param units       各区间的刻度单位，个数比分界点少1
+     */
+    public static ScaleMapping piecewise(float[] breakpoints, float[] units) {
+        if (breakpoints == null || units == null || breakpoints.length < 2 || units.length != breakpoints.length - 1) {
+            throw new IllegalArgumentException(String.format("Expected n breakpoints and n - 1 units: %s, %s",
+                    Arrays.toString(breakpoints), Arrays.toString(units)));
+        }
+        for (int i = 0; i < units.length; i++) {
+            if (!(breakpoints[i + 1] > breakpoints[i]) || !(units[i] > 0)) {
+                throw new IllegalArgumentException(String.format("The breakpoints must be ascending and the units " +
+                        "positive: %s, %s", Arrays.toString(breakpoints), Arrays.toString(units)));
+            }
+        }
+        return new Piecewise(breakpoints.clone(), units.clone());
+    }
+
+    /**
+     * 按数值范围生成刻度分段
+     *
+     * @param layout         输出的分段布局
+     * @param minNumber      最小数值，定点数
+     * @param maxNumber      最大数值，定点数
+     * @param numberUnit     刻度数值最小单位，定点数
+     * @param valueScale     定点数的小数位数
+     * @param gradationGap   刻度间距，单位：px
+     * @param numberPerCount 相邻两条长刻度线之间的刻度数
+     */
+    abstract void build(SegmentedLayout layout, long minNumber, long maxNumber, long numberUnit, int valueScale,
+                        float gradationGap, int numberPerCount);
+
+    private static final class Linear extends ScaleMapping {
+        @Override
+        void build(SegmentedLayout layout, long minNumber, long maxNumber, long numberUnit, int valueScale,
+                   float gradationGap, int numberPerCount) {
+            // 刻度网格从最小值开始；长刻度与数值按绝对数值分类
+            final long perUnitCount = numberUnit * numberPerCount;
+            layout.clear();
+            layout.addSegment(minNumber, maxNumber, minNumber, numberUnit, gradationGap, 0, perUnitCount, perUnitCount);
+        }
+    }
+
+    private static final class Log10 extends ScaleMapping {
+        /**
+         * 每个数量级内刻度的候选细分数，优先最细的
+         */
+        private static final int[] SUBDIVISIONS = {10, 5, 2, 1};
+
+        private final float mDecadeWidth;
+
+        Log10(float decadeWidth) {
+            mDecadeWidth = decadeWidth;
+        }
+
+        @Override
+        void build(SegmentedLayout layout, long minNumber, long maxNumber, long numberUnit, int valueScale,
+                   float gradationGap, int numberPerCount) {
+            if (minNumber <= 0) {
+                throw new IllegalArgumentException(String.format("The log10 mapping requires a positive minValue: %s",
+                        FixedPoint.format(minNumber, valueScale)));
+            }
+            layout.clear();
+            // 不大于最小值的10的幂，及最小值的尾数
+            long power = 1;
+            while (power <= minNumber / 10) {
+                power *= 10;
+            }
+            long mantissa = minNumber / power;
+            long start = minNumber;
+            while (start < maxNumber) {
+                final long end = Math.min((mantissa + 1) * power, maxNumber);
+                final float width = (float) (mDecadeWidth * Math.log10((mantissa + 1.0) / mantissa));
+                final long unit = chooseUnit(power, numberUnit, width, gradationGap);
+                final long labelEvery = mantissa == 1 || mantissa == 2 || mantissa == 5 ? power : power * 10;
+                layout.addSegment(start, end, mantissa * power, unit, (float) ((double) width * unit / power),
+                        0, power, labelEvery);
+                start = end;
+                if (++mantissa == 10) {
+                    mantissa = 1;
+                    power *= 10;
+                }
+            }
+            if (layout.getSegmentCount() == 0) {
+                // 最小值等于最大值
+                layout.addSegment(minNumber, maxNumber, minNumber, numberUnit, gradationGap, 0, power, power);
+            }
+        }
+
+        /**
+         * 段内的刻度单位：优先按候选细分数细分数量级，不小于刻度数值最小单位，且刻度间距不小于最小间距
+         */
+        private static long chooseUnit(long power, long numberUnit, float width, float gradationGap) {
+            for (int subdivision : SUBDIVISIONS) {
+                if (power % subdivision == 0 && power / subdivision >= numberUnit
+                        && width / subdivision >= gradationGap) {
+                    return power / subdivision;
+                }
+            }
+            // 没有合适的细分（数量级小于最小单位，或段太窄）：取间距足够的最小单位的最小倍数
+            final long multiple = (long) Math.ceil((double) gradationGap * power / ((double) width * numberUnit));
+            return Math.max(1, multiple) * numberUnit;
+        }
+    }
+
+    private static final class Piecewise extends ScaleMapping {
+        private final float[] mBreakpoints;
+        private final float[] mUnits;
+
+        Piecewise(float[] breakpoints, float[] units) {
+            mBreakpoints = breakpoints;
+            mUnits = units;
+        }
+
+        @Override
+        void build(SegmentedLayout layout, long minNumber, long maxNumber, long numberUnit, int valueScale,
+                   float gradationGap, int numberPerCount) {
+            layout.clear();
+            final int last = mUnits.length - 1;
+            long start = minNumber;
+            for (int i = 0; i <= last && start < maxNumber; i++) {
+                final long end = i == last ? maxNumber
+                        : Math.min(maxNumber, FixedPoint.toFixed(mBreakpoints[i + 1], valueScale));
+                if (end <= start) {
+                    continue;
+                }
+                final long unit = FixedPoint.toFixed(mUnits[i], valueScale);
+                if (unit <= 0) {
+                    throw new IllegalArgumentException(String.format("The unit of %f is too small for valueScale %d",
+                            mUnits[i], valueScale));
+                }
+                // 区间内从起点开始分类：起点总是长刻度
+                final long perUnitCount = unit * numberPerCount;
+                layout.addSegment(start, end, start, unit, gradationGap, -start, perUnitCount, perUnitCount);
+                start = end;
+            }
+            if (layout.getSegmentCount() == 0) {
+                // 最小值等于最大值
+                final long perUnitCount = numberUnit * numberPerCount;
+                layout.addSegment(minNumber, maxNumber, minNumber, numberUnit, gradationGap, 0, perUnitCount, perUnitCount);
+            }
+        }
+    }
+}
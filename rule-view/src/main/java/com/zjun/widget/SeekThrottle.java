@@ -0,0 +1,132 @@
+package com.zjun.widget;
+
+/**
+ * SeekThrottle
+ *
+ * 拖动时间轴时的seek限流：按固定间隔最多请求一次seek，只保留最新的值；停止时立即请求一次精确seek
+ *
+ * 思路：
+ *  - 每帧都seek会让解码器一直处理过期的请求，只需要按一定的频率给出最新位置
+ *  - 距上次seek超过间隔时立即请求；否则只记录最新值，并在间隔到达时请求一次，期间的中间值被覆盖
+ *  - 与上次seek的值相同时不重复请求
+ *  - 停止时取消等待中的请求，直接以最终值请求精确seek
+ *  - 时钟与延时执行通过接口注入，不依赖 android.*，可使用假时钟在JVM中测试
+ *  - 只能在同一个线程（主线程）中使用
+ */
+final class SeekThrottle {
+
+    interface Clock {
+        long uptimeMillis();
+    }
+
+    /**
+     * 延时执行，方法名与 View 一致，控件可直接转调
+     */
+    interface Scheduler {
+        boolean postDelayed(Runnable action, long delayMillis);
+
+        boolean removeCallbacks(Runnable action);
+    }
+
+    interface Target {
+        /**
+         * @param value   seek的值
+         * @param precise 是否为停止时的精确seek
+         */
+        void onSeek(int value, boolean precise);
+    }
+
+    private final Clock mClock;
+    private final Scheduler mScheduler;
+    private final Target mTarget;
+    private long mIntervalMillis;
+
+    private boolean hasSeek;
+    private int mLastSeekValue;
+    private long mLastSeekMillis;
+
+    private boolean hasPending;
+    private int mPendingValue;
+    private boolean isScheduled;
+
+    private final Runnable mFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            isScheduled = false;
+            if (hasPending) {
+                hasPending = false;
+                seek(mPendingValue, mClock.uptimeMillis());
+            }
+        }
+    };
+
+    SeekThrottle(long intervalMillis, Clock clock, Scheduler scheduler, Target target) {
+        if (clock == null || scheduler == null || target == null) {
+            throw new IllegalArgumentException("clock, scheduler and target must not be null");
+        }
+        mClock = clock;
+        mScheduler = scheduler;
+        mTarget = target;
+        setInterval(intervalMillis);
+    }
+
+    /**
+     * 设置两次seek的最小间隔，单位：ms。0 表示不限流
+     */
+    void setInterval(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException(String.format("The interval(%d) must not be negative", intervalMillis));
+        }
+        mIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * 请求seek：间隔已到时立即请求，否则等间隔到达时请求最新的值
+     */
+    void request(int value) {
+        final long now = mClock.uptimeMillis();
+        final long waitMillis = hasSeek ? mLastSeekMillis + mIntervalMillis - now : 0;
+        if (waitMillis <= 0 && !isScheduled) {
+            seek(value, now);
+            return;
+        }
+        mPendingValue = value;
+        hasPending = true;
+        if (!isScheduled) {
+            isScheduled = true;
+            mScheduler.postDelayed(mFlushTask, waitMillis);
+        }
+    }
+
+    /**
+     * 停止：丢弃等待中的请求，立即请求精确seek
+     */
+    void settle(int value) {
+        cancel();
+        hasSeek = true;
+        mLastSeekValue = value;
+        mLastSeekMillis = mClock.uptimeMillis();
+        mTarget.onSeek(value, true);
+    }
+
+    /**
+     * 丢弃等待中的请求
+     */
+    void cancel() {
+        hasPending = false;
+        if (isScheduled) {
+            isScheduled = false;
+            mScheduler.removeCallbacks(mFlushTask);
+        }
+    }
+
+    private void seek(int value, long now) {
+        if (hasSeek && value == mLastSeekValue) {
+            return;
+        }
+        hasSeek = true;
+        mLastSeekValue = value;
+        mLastSeekMillis = now;
+        mTarget.onSeek(value, false);
+    }
+}
@@ -0,0 +1,288 @@
+package com.zjun.widget;
+
+import java.util.Arrays;
+
+/**
+ * SegmentedLayout
+ *
+ * 分段刻度布局：由若干段等间距网格首尾相接组成，每段有自己的刻度单位与刻度间距，用于非线性的刻度映射{@link ScaleMapping}
+ *
+ * 思路：
+ *  - 每段是 [start, end] 内的一个等间距网格：刻度值为 anchor + k * unit，相邻刻度的距离为 unitGap。段按数值升序，前一段的终点是后一段的起点
+ *  - 距离连续：每段记录 anchor 处的距离，添加时由上一段在起点处的距离推算。第一段的起点距离为0
+ *  - 数值 <-> 距离：先二分查找所在的段，再按该段的网格换算，O(log 段数)
+ *  - 计算可见刻度时，只遍历与绘制宽度相交的段（两侧各多一段，用于扩展刻度），每段复用同一个{@link RuleLayout}计算，
+ *    中间段不含终点（终点是下一段的第一个刻度）
+ *  - 只有一段时，与直接使用{@link RuleLayout}的结果相同
+ *  - 不依赖 android.*，可在JVM中直接测试
+ */
+final class SegmentedLayout {
+
+    /**
+     * 由距离计算数值时的容差（单位：刻度），与{@link RuleLayout}一致
+     */
+    private static final double FLOOR_EPSILON = 1e-4;
+
+    private int mSegmentCount;
+    private long[] mStarts = new long[8];
+    private long[] mEnds = new long[8];
+    private long[] mAnchors = new long[8];
+    private long[] mUnits = new long[8];
+    private float[] mUnitGaps = new float[8];
+    private long[] mClassifyOffsets = new long[8];
+    private long[] mLongEvery = new long[8];
+    private long[] mLabelEvery = new long[8];
+    /**
+     * 各段 anchor 处、起点处的距离
+     */
+    private double[] mAnchorDistances = new double[8];
+    private double[] mStartDistances = new double[8];
+    private int mExpendUnits;
+
+    /**
+     * 逐段计算可见刻度
+     */
+    private final RuleLayout mSegmentLayout = new RuleLayout();
+
+    private float[] mPositions = new float[64];
+    private long[] mValues = new long[64];
+    private int[] mTypes = new int[64];
+    private boolean[] mLabels = new boolean[64];
+    private int mCount;
+
+    /**
+     * 清除所有段
+     */
+    void clear() {
+        mSegmentCount = 0;
+        mCount = 0;
+    }
+
+    /**
+     * 追加一段，起点必须等于上一段的终点
+     *
+     * @param start          起点（含）
+     * @param end            终点（含）
+     * @param anchor         任意一个刻度的数值，刻度值为 anchor + k * unit
+     * @param unit           相邻刻度的数值差
+     * @param unitGap        相邻刻度的距离
+     * @param classifyOffset 分类前加到数值上的偏移
+     * @param longEvery      长刻度的间隔
+     * @param labelEvery     数值的间隔
+     */
+    void addSegment(long start, long end, long anchor, long unit, float unitGap,
+                    long classifyOffset, long longEvery, long labelEvery) {
+        if (start > end) {
+            throw new IllegalArgumentException(String.format("start(%d) > end(%d)", start, end));
+        }
+        if (unit <= 0 || !(unitGap > 0) || longEvery <= 0 || labelEvery <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid segment: unit=%d, unitGap=%f, " +
+                    "longEvery=%d, labelEvery=%d", unit, unitGap, longEvery, labelEvery));
+        }
+        final int index = mSegmentCount;
+        if (index > 0 && start != mEnds[index - 1]) {
+            throw new IllegalArgumentException(String.format("The segment must start at the previous end(%d): %d",
+                    mEnds[index - 1], start));
+        }
+        ensureSegmentCapacity(index + 1);
+        final double startDistance = index == 0 ? 0 : distanceIn(index - 1, start);
+        mStarts[index] = start;
+        mEnds[index] = end;
+        mAnchors[index] = anchor;
+        mUnits[index] = unit;
+        mUnitGaps[index] = unitGap;
+        mClassifyOffsets[index] = classifyOffset;
+        mLongEvery[index] = longEvery;
+        mLabelEvery[index] = labelEvery;
+        mStartDistances[index] = startDistance;
+        mAnchorDistances[index] = startDistance - (start - anchor) * (double) unitGap / unit;
+        mSegmentCount = index + 1;
+    }
+
+    /**
+     * 设置两侧扩展的刻度数，避免数值文字在边缘突变
+     */
+    void setExpendUnits(int expendUnits) {
+        mExpendUnits = Math.max(0, expendUnits);
+    }
+
+    int getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * 数值对应的距离，超出范围时按两端的段外推
+     */
+    double distanceOf(long value) {
+        return distanceIn(segmentOfValue(value), value);
+    }
+
+    private double distanceIn(int segment, long value) {
+        return mAnchorDistances[segment] + (value - mAnchors[segment]) * (double) mUnitGaps[segment] / mUnits[segment];
+    }
+
+    /**
+     * 距离处（含）左侧最近的刻度值，限定在范围内
+     */
+    long floorValueAt(double distance) {
+        final int segment = segmentOfDistance(distance);
+        final double units = (distance - mAnchorDistances[segment]) / mUnitGaps[segment];
+        return clampToSegment(segment, mAnchors[segment] + (long) Math.floor(units + FLOOR_EPSILON) * mUnits[segment]);
+    }
+
+    /**
+     * 距离处最近的刻度值，限定在范围内。段的起点、中间段的终点也是刻度
+     */
+    long roundValueAt(double distance) {
+        final int segment = segmentOfDistance(distance);
+        final double units = (distance - mAnchorDistances[segment]) / mUnitGaps[segment];
+        return clampToSegment(segment, mAnchors[segment] + Math.round(units) * mUnits[segment]);
+    }
+
+    /**
+     * 限定在段内。最后一段的终点不在网格上时，取网格上最后一个刻度
+     */
+    private long clampToSegment(int segment, long value) {
+        if (value < mStarts[segment]) {
+            return mStarts[segment];
+        }
+        final long end = mEnds[segment];
+        if (value > end) {
+            if (segment < mSegmentCount - 1) {
+                return end;
+            }
+            final long unit = mUnits[segment];
+            value = mAnchors[segment] + floorDiv(end - mAnchors[segment], unit) * unit;
+            return Math.max(value, mStarts[segment]);
+        }
+        return value;
+    }
+
+    /**
+     * 数值所在的段：起点不大于数值的最后一段
+     */
+    private int segmentOfValue(long value) {
+        int low = 0;
+        int high = mSegmentCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mStarts[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 距离所在的段：起点距离不大于距离的最后一段
+     */
+    private int segmentOfDistance(double distance) {
+        int low = 0;
+        int high = mSegmentCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mStartDistances[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 计算绘制宽度内的刻度
+     *
+     * @param leftDistance 绘制区域 x=0 处的距离
+     * @param width        绘制宽度
+     * @return 刻度数量
+     */
+    int layout(double leftDistance, int width) {
+        mCount = 0;
+        if (mSegmentCount == 0) {
+            return 0;
+        }
+        final int last = mSegmentCount - 1;
+        final int first = Math.max(0, segmentOfDistance(leftDistance) - 1);
+        final int end = Math.min(last, segmentOfDistance(leftDistance + width) + 1);
+        final RuleLayout layout = mSegmentLayout;
+        layout.setExpendUnits(mExpendUnits);
+        int count = 0;
+        for (int s = first; s <= end; s++) {
+            // 中间段不含终点
+            final long max = s < last ? mEnds[s] - 1 : mEnds[s];
+            if (max < mStarts[s]) {
+                continue;
+            }
+            layout.setRange(mStarts[s], max);
+            layout.setGrid(mAnchors[s], mAnchors[s], mUnits[s], mUnitGaps[s]);
+            layout.setClassification(mClassifyOffsets[s], 0, mLongEvery[s], mLabelEvery[s]);
+            final int n = layout.layout(leftDistance - mAnchorDistances[s], width);
+            ensureCapacity(count + n);
+            for (int i = 0; i < n; i++) {
+                mPositions[count] = layout.positionAt(i);
+                mValues[count] = layout.valueAt(i);
+                mTypes[count] = layout.typeAt(i);
+                mLabels[count] = layout.hasLabelAt(i);
+                count++;
+            }
+        }
+        mCount = count;
+        return count;
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    float positionAt(int index) {
+        return mPositions[index];
+    }
+
+    long valueAt(int index) {
+        return mValues[index];
+    }
+
+    int typeAt(int index) {
+        return mTypes[index];
+    }
+
+    boolean hasLabelAt(int index) {
+        return mLabels[index];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mPositions.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, mPositions.length << 1);
+        mPositions = Arrays.copyOf(mPositions, newCapacity);
+        mValues = Arrays.copyOf(mValues, newCapacity);
+        mTypes = Arrays.copyOf(mTypes, newCapacity);
+        mLabels = Arrays.copyOf(mLabels, newCapacity);
+    }
+
+    private void ensureSegmentCapacity(int capacity) {
+        if (capacity <= mStarts.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, mStarts.length << 1);
+        mStarts = Arrays.copyOf(mStarts, newCapacity);
+        mEnds = Arrays.copyOf(mEnds, newCapacity);
+        mAnchors = Arrays.copyOf(mAnchors, newCapacity);
+        mUnits = Arrays.copyOf(mUnits, newCapacity);
+        mUnitGaps = Arrays.copyOf(mUnitGaps, newCapacity);
+        mClassifyOffsets = Arrays.copyOf(mClassifyOffsets, newCapacity);
+        mLongEvery = Arrays.copyOf(mLongEvery, newCapacity);
+        mLabelEvery = Arrays.copyOf(mLabelEvery, newCapacity);
+        mAnchorDistances = Arrays.copyOf(mAnchorDistances, newCapacity);
+        mStartDistances = Arrays.copyOf(mStartDistances, newCapacity);
+    }
+
+    private static long floorDiv(long x, long y) {
+        final long div = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? div - 1 : div;
+    }
+}
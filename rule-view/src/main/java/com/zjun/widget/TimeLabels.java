@@ -0,0 +1,94 @@
+package com.zjun.widget;
+
+/**
+ * TimeLabels
+ *
+ * 时间刻度数值表
+ *
+ * 思路：
+ *  - 刻度数值都是整分钟，一天一共 24 * 60 + 1 = 1441 个（包括 24:00），全部预先生成，所有控件共享
+ *  - 使用一个连续的char数组存放，每个数值固定5个字符“HH:mm”，绘制时使用 Canvas.drawText(char[], index, count, ...)，
+ *    onDraw() 中不再创建任何对象
+ *  - 第一次使用时才创建（懒加载），约 14KB
+ */
+final class TimeLabels {
+
+    /**
+     * 一天的分钟数
+     */
+    static final int MINUTES_OF_DAY = 24 * 60;
+    /**
+     * 每个数值的字符数：“HH:mm”
+     */
+    static final int LABEL_LENGTH = 5;
+
+    private TimeLabels() {
+    }
+
+    /**
+     * 懒加载：类加载时才创建
+     */
+    private static final class Holder {
+        static final char[] TABLE = createTable();
+    }
+
+    private static char[] createTable() {
+        final char[] table = new char[(MINUTES_OF_DAY + 1) * LABEL_LENGTH];
+        for (int minute = 0, index = 0; minute <= MINUTES_OF_DAY; minute++, index += LABEL_LENGTH) {
+            final int hour = minute / 60;
+            final int minuteOfHour = minute % 60;
+            table[index] = (char) ('0' + hour / 10);
+            table[index + 1] = (char) ('0' + hour % 10);
+            table[index + 2] = ':';
+            table[index + 3] = (char) ('0' + minuteOfHour / 10);
+            table[index + 4] = (char) ('0' + minuteOfHour % 10);
+        }
+        return table;
+    }
+
+    /**
+     * 获取数值表
+     * @return 所有“HH:mm”数值，第 n 分钟的数值起始位置为 {@link #indexOf(int)}
+     */
+    static char[] table() {
+        return Holder.TABLE;
+    }
+
+    /**
+     * 时间值对应在数值表中的起始位置
+     * @param timeValue 时间值，单位：s，取值范围∈[0, 24 * 3600]，超出范围会被限定
+     * @return 起始位置，长度固定为 {@link #LABEL_LENGTH}
+     */
+    static int indexOf(int timeValue) {
+        int minute = timeValue / 60;
+        if (minute < 0) {
+            minute = 0;
+        } else if (minute > MINUTES_OF_DAY) {
+            minute = MINUTES_OF_DAY;
+        }
+        return minute * LABEL_LENGTH;
+    }
+
+    /**
+     * 格式化时间 HH:mm
+     */
+    static String formatHHmm(int timeValue) {
+        return new String(Holder.TABLE, indexOf(timeValue), LABEL_LENGTH);
+    }
+
+    /**
+     * 格式化时间 HH:mm:ss
+     */
+    static String formatHHmmss(int timeValue) {
+        if (timeValue < 0) {
+            timeValue = 0;
+        }
+        final char[] chars = new char[LABEL_LENGTH + 3];
+        System.arraycopy(Holder.TABLE, indexOf(timeValue), chars, 0, LABEL_LENGTH);
+        final int second = timeValue % 60;
+        chars[LABEL_LENGTH] = ':';
+        chars[LABEL_LENGTH + 1] = (char) ('0' + second / 10);
+        chars[LABEL_LENGTH + 2] = (char) ('0' + second % 10);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,20 @@
+package com.zjun.widget;
+
+/**
+ * TimePartDataSource
+ *
+ * 时间块数据源：{@link TimeRuleView}滑动时，按页查询可见范围及其两侧的时间块
+ */
+public interface TimePartDataSource {
+
+    /**
+     * 加载时间范围[fromTime, toTime)内的时间块
+     * 在后台线程中调用，可以阻塞（如查询数据库、网络请求）
+     *
+     * @param fromTime 起始时间（包含），单位：s，与{@link TimeRuleView}的时间值一致。
+     *                 时间范围模式下，可用{@link TimeRuleView#toTimeMillis(int)}转换为epoch毫秒
+     * @param toTime   结束时间（不包含）
+     * @param out      加载结果，使用{@link TimePartStore#append(int, int)}或{@link TimePartStore#set(int[], int[], int)}放入
+     */
+    void loadTimeParts(int fromTime, int toTime, TimePartStore out);
+}
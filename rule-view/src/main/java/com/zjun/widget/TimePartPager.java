@@ -0,0 +1,236 @@
+package com.zjun.widget;
+
+import java.util.concurrent.Executor;
+
+/**
+ * TimePartPager
+ *
+ * 时间块分页加载器
+ *
+ * 思路：
+ *  - 时间轴按固定时长分页，可见范围及两侧预取的页，在后台线程中从{@link TimePartDataSource}加载
+ *  - 加载结果通过主线程的Executor（如View.post）交回，只在主线程中读写缓存，不需要加锁
+ *  - 缓存的页数有上限，已满时淘汰离可见范围最远的页
+ *  - 每次请求都有一个令牌，数据源变化或页被淘汰后，过期的结果直接丢弃
+ *  - 加载抛出异常时不影响后台线程，在主线程中把页恢复为未加载，之后再次可见时重新请求
+ *  - 不请求超出时间范围的页。缓存放不下保留范围时，可见的页优先，可淘汰预取的页；可见的页也放不下时通知调用方
+ *  - 缓存使用定长数组，绘制时查询页不创建对象
+ */
+final class TimePartPager {
+
+    private static final int STATE_EMPTY = 0;
+    private static final int STATE_LOADING = 1;
+    private static final int STATE_LOADED = 2;
+
+    /**
+     * 页加载完成监听
+     */
+    interface OnPageLoadedListener {
+        /**
+         * 在主线程中调用
+         * @param fromTime 页的起始时间
+         * @param toTime   页的结束时间
+         */
+        void onPageLoaded(int fromTime, int toTime);
+
+        /**
+         * 加载失败，在主线程中调用。页已恢复为未加载，下次请求时重试
+         * @param e 数据源抛出的异常
+         */
+        void onPageFailed(int fromTime, int toTime, RuntimeException e);
+    }
+
+    private final TimePartDataSource mDataSource;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+    private final OnPageLoadedListener mListener;
+    /**
+     * 每页的时长，单位：s
+     */
+    private final int mPageTime;
+    /**
+     * 两侧预取的页数
+     */
+    private final int mPrefetchPages;
+
+    private final int[] mPageIndexes;
+    private final int[] mStates;
+    private final int[] mTokens;
+    private final TimePartStore[] mStores;
+    private int mNextToken;
+
+    TimePartPager(TimePartDataSource dataSource, Executor backgroundExecutor, Executor mainExecutor,
+                  OnPageLoadedListener listener, int pageTime, int prefetchPages, int maxPages) {
+        mDataSource = dataSource;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+        mListener = listener;
+        mPageTime = pageTime;
+        mPrefetchPages = prefetchPages;
+        mPageIndexes = new int[maxPages];
+        mStates = new int[maxPages];
+        mTokens = new int[maxPages];
+        mStores = new TimePartStore[maxPages];
+    }
+
+    int pageOf(int time) {
+        return time / mPageTime;
+    }
+
+    /**
+     * 获取已加载的页
+     * @return 未加载完成时返回null
+     */
+    TimePartStore getPage(int pageIndex) {
+        final int slot = slotOf(pageIndex);
+        return slot >= 0 && mStates[slot] == STATE_LOADED ? mStores[slot] : null;
+    }
+
+    /**
+     * 请求可见范围内的页，以及两侧预取的页。已缓存或正在加载的页不重复请求
+     *
+     * @param firstPage 第一个可见的页
+     * @param lastPage  最后一个可见的页
+     * @param maxPage   时间范围内的最后一页，之后的页不请求
+     * @return 可见的页是否都已缓存或已请求。缓存的页数小于可见的页数时返回false
+     */
+    boolean request(int firstPage, int lastPage, int maxPage) {
+        firstPage = Math.max(0, firstPage);
+        lastPage = Math.min(lastPage, maxPage);
+        if (firstPage > lastPage) {
+            return true;
+        }
+        // 先请求可见的页，可淘汰预取的页
+        for (int page = firstPage; page <= lastPage; page++) {
+            if (!requestPage(page, firstPage, lastPage)) {
+                return false;
+            }
+        }
+        // 再请求预取的页，不淘汰保留范围内的页
+        final int from = Math.max(0, firstPage - mPrefetchPages);
+        final int to = Math.min(maxPage, lastPage + mPrefetchPages);
+        for (int i = 1; i <= mPrefetchPages; i++) {
+            if (firstPage - i >= from && !requestPage(firstPage - i, from, to)) {
+                break;
+            }
+            if (lastPage + i <= to && !requestPage(lastPage + i, from, to)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 页已缓存、正在加载或已开始加载时返回true；保留范围外没有可淘汰的页时返回false
+     */
+    private boolean requestPage(final int pageIndex, int keepFrom, int keepTo) {
+        if (slotOf(pageIndex) >= 0) {
+            return true;
+        }
+        final int slot = obtainSlot(keepFrom, keepTo);
+        if (slot < 0) {
+            return false;
+        }
+        final int token = ++mNextToken;
+        mPageIndexes[slot] = pageIndex;
+        mStates[slot] = STATE_LOADING;
+        mTokens[slot] = token;
+        mStores[slot] = null;
+        final int fromTime = pageIndex * mPageTime;
+        final int toTime = fromTime + mPageTime;
+        mBackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final TimePartStore store = new TimePartStore();
+                try {
+                    mDataSource.loadTimeParts(fromTime, toTime, store);
+                } catch (final RuntimeException e) {
+                    // 不能让异常结束后台线程
+                    mMainExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            fail(slot, token, e);
+                        }
+                    });
+                    return;
+                }
+                mMainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(slot, token, store);
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    private void deliver(int slot, int token, TimePartStore store) {
+        if (mTokens[slot] != token || mStates[slot] != STATE_LOADING) {
+            // 已过期
+            return;
+        }
+        mStates[slot] = STATE_LOADED;
+        mStores[slot] = store;
+        if (mListener != null) {
+            final int fromTime = mPageIndexes[slot] * mPageTime;
+            mListener.onPageLoaded(fromTime, fromTime + mPageTime);
+        }
+    }
+
+    private void fail(int slot, int token, RuntimeException e) {
+        if (mTokens[slot] != token || mStates[slot] != STATE_LOADING) {
+            // 已过期
+            return;
+        }
+        // 恢复为未加载，下次请求时重试
+        mStates[slot] = STATE_EMPTY;
+        mTokens[slot] = 0;
+        if (mListener != null) {
+            final int fromTime = mPageIndexes[slot] * mPageTime;
+            mListener.onPageFailed(fromTime, fromTime + mPageTime, e);
+        }
+    }
+
+    /**
+     * 获取一个空位，没有空位时，淘汰保留范围之外离得最远的页
+     * @return 空位，没有可淘汰的页时返回 -1
+     */
+    private int obtainSlot(int keepFrom, int keepTo) {
+        int farthestSlot = -1;
+        int farthestDistance = 0;
+        for (int i = 0; i < mStates.length; i++) {
+            if (mStates[i] == STATE_EMPTY) {
+                return i;
+            }
+            final int page = mPageIndexes[i];
+            final int distance = page < keepFrom ? keepFrom - page : page - keepTo;
+            if (distance > farthestDistance) {
+                farthestDistance = distance;
+                farthestSlot = i;
+            }
+        }
+        return farthestSlot;
+    }
+
+    private int slotOf(int pageIndex) {
+        for (int i = 0; i < mStates.length; i++) {
+            if (mStates[i] != STATE_EMPTY && mPageIndexes[i] == pageIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 清空所有页，正在加载的结果会被丢弃
+     */
+    void clear() {
+        for (int i = 0; i < mStates.length; i++) {
+            mStates[i] = STATE_EMPTY;
+            mStores[i] = null;
+            // 令牌失效
+            mTokens[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.zjun.widget;
+
+import java.util.Arrays;
+
+/**
+ * TimePartStore
+ *
+ * 时间块（段）集合，使用基本类型数组按列存储
+ *
+ * 思路：
+ *  - 一天的录像片段可能有上万个，使用 int[] 分别存放起始时间与结束时间，没有每个片段的对象开销
+ *  - 设置数据时，按起始时间排序，并合并重叠（或首尾相接）的时间块。
+ *    合并后起始时间与结束时间都是严格递增的，所以可以用二分法找到可见范围内的第一个时间块
+ *  - 排序时把起始时间与结束时间合成一个long，直接对long[]排序，不需要装箱
+ *  - 绘制时只遍历可见的时间块：O(log n + 可见数量)
+ *  - 缩小时，很多时间块落在同一个像素内。按缩放等级预先合并间隔小于1像素的时间块（LOD），
+ *    合并结果按等级缓存，数据变化时清除。这样任何缩放等级下，绘制数量都不超过控件的像素宽度
+ *  - 实时录像时，时间块只会在末尾增长。追加时直接延长最后一个时间块或在末尾添加（容量翻倍扩展），
+ *    各等级的合并结果也同样增量更新，均摊O(1)
+ */
+public final class TimePartStore {
+
+    private int[] mStartTimes;
+    private int[] mEndTimes;
+    private int mSize;
+
+    /**
+     * 各缩放等级合并后的时间块，及其对应的合并间隔，懒加载
+     */
+    private TimePartStore[] mLevelStores;
+    private int[] mLevelGaps;
+
+    public TimePartStore() {
+        this(0);
+    }
+
+    public TimePartStore(int capacity) {
+        mStartTimes = new int[capacity];
+        mEndTimes = new int[capacity];
+    }
+
+    /**
+     * 设置时间块
+     *
+     * @param startTimes 起始时间，单位：s
+     * @param endTimes   结束时间，必须不小于对应的起始时间
+     * @param count      时间块个数
+     */
+    public void set(int[] startTimes, int[] endTimes, int count) {
+        if (count > startTimes.length || count > endTimes.length) {
+            throw new IllegalArgumentException(String.format("The count of %d is out of range: startTimes=%d, endTimes=%d",
+                    count, startTimes.length, endTimes.length));
+        }
+        // 合成long排序：高32位为起始时间，低32位为结束时间
+        final long[] parts = new long[count];
+        for (int i = 0; i < count; i++) {
+            final int start = startTimes[i];
+            final int end = endTimes[i];
+            if (start < 0 || end < start) {
+                throw new IllegalArgumentException(String.format("The time part is invalid: startTime=%d, endTime=%d",
+                        start, end));
+            }
+            parts[i] = ((long) start << 32) | end;
+        }
+        Arrays.sort(parts);
+
+        ensureCapacity(count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final int start = (int) (parts[i] >>> 32);
+            final int end = (int) parts[i];
+            if (size > 0 && start <= mEndTimes[size - 1]) {
+                // 与上一个重叠或相接，合并
+                if (end > mEndTimes[size - 1]) {
+                    mEndTimes[size - 1] = end;
+                }
+            } else {
+                mStartTimes[size] = start;
+                mEndTimes[size] = end;
+                size++;
+            }
+        }
+        mSize = size;
+        clearLevels();
+    }
+
+    /**
+     * 追加时间块
+     * 与最后一个时间块重叠或相接时，延长最后一个；在其之后时，添加到末尾。两者都是均摊O(1)
+     * 在最后一个时间块之前时，需要重新排序，为O(n log n)
+     *
+     * @param startTime 起始时间，单位：s
+     * @param endTime   结束时间，必须不小于起始时间
+     * @return 是否按顺序追加。false 表示已重新排序，变化的范围不确定
+     */
+    public boolean append(int startTime, int endTime) {
+        if (startTime < 0 || endTime < startTime) {
+            throw new IllegalArgumentException(String.format("The time part is invalid: startTime=%d, endTime=%d",
+                    startTime, endTime));
+        }
+        if (mSize > 0 && startTime < mStartTimes[mSize - 1]) {
+            // 乱序，重新排序
+            final int count = mSize + 1;
+            final int[] startTimes = Arrays.copyOf(mStartTimes, count);
+            final int[] endTimes = Arrays.copyOf(mEndTimes, count);
+            startTimes[mSize] = startTime;
+            endTimes[mSize] = endTime;
+            set(startTimes, endTimes, count);
+            return false;
+        }
+        appendInOrder(startTime, endTime, 0);
+        // 增量更新各等级的合并结果
+        if (mLevelStores != null) {
+            for (int i = 0; i < mLevelStores.length; i++) {
+                if (mLevelStores[i] != null) {
+                    mLevelStores[i].appendInOrder(startTime, endTime, mLevelGaps[i]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按顺序追加，与最后一个时间块的间隔不大于mergeGap时，合并
+     */
+    private void appendInOrder(int startTime, int endTime, int mergeGap) {
+        if (mSize > 0 && startTime - mEndTimes[mSize - 1] <= mergeGap) {
+            if (endTime > mEndTimes[mSize - 1]) {
+                mEndTimes[mSize - 1] = endTime;
+            }
+            return;
+        }
+        if (mSize == mStartTimes.length) {
+            ensureCapacity(Math.max(16, mSize << 1));
+        }
+        mStartTimes[mSize] = startTime;
+        mEndTimes[mSize] = endTime;
+        mSize++;
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        mSize = 0;
+        clearLevels();
+    }
+
+    /**
+     * 获取某个缩放等级下，合并后的时间块
+     * 相邻时间块的间隔不大于mergeGap时，合并成一个
+     *
+     * @param level    缩放等级，作为缓存的索引
+     * @param mergeGap 合并间隔，单位：s。小于等于0时不合并，直接返回自身
+     * @return 合并后的时间块集合，不可修改
+     */
+    TimePartStore coalesce(int level, int mergeGap) {
+        if (mergeGap <= 0 || mSize == 0) {
+            return this;
+        }
+        if (mLevelStores == null || mLevelStores.length <= level) {
+            final int length = level + 1;
+            mLevelStores = mLevelStores == null ? new TimePartStore[length] : Arrays.copyOf(mLevelStores, length);
+            mLevelGaps = mLevelGaps == null ? new int[length] : Arrays.copyOf(mLevelGaps, length);
+        }
+        TimePartStore store = mLevelStores[level];
+        if (store == null || mLevelGaps[level] != mergeGap) {
+            store = new TimePartStore(mSize);
+            int size = 0;
+            for (int i = 0; i < mSize; i++) {
+                if (size > 0 && mStartTimes[i] - store.mEndTimes[size - 1] <= mergeGap) {
+                    store.mEndTimes[size - 1] = mEndTimes[i];
+                } else {
+                    store.mStartTimes[size] = mStartTimes[i];
+                    store.mEndTimes[size] = mEndTimes[i];
+                    size++;
+                }
+            }
+            store.mSize = size;
+            mLevelStores[level] = store;
+            mLevelGaps[level] = mergeGap;
+        }
+        return store;
+    }
+
+    private void clearLevels() {
+        if (mLevelStores != null) {
+            Arrays.fill(mLevelStores, null);
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getStartTime(int index) {
+        return mStartTimes[index];
+    }
+
+    public int getEndTime(int index) {
+        return mEndTimes[index];
+    }
+
+    /**
+     * 二分法查找第一个结束时间大于等于指定时间的时间块
+     *
+     * @param time 时间，单位：s
+     * @return 索引值，不存在时返回 {@link #size()}
+     */
+    public int indexOfFirstEndAtOrAfter(int time) {
+        int min = 0;
+        int max = mSize;
+        while (min < max) {
+            final int mid = (min + max) >>> 1;
+            if (mEndTimes[mid] < time) {
+                min = mid + 1;
+            } else {
+                max = mid;
+            }
+        }
+        return min;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (mStartTimes.length < capacity) {
+            mStartTimes = Arrays.copyOf(mStartTimes, capacity);
+            mEndTimes = Arrays.copyOf(mEndTimes, capacity);
+        }
+    }
+}
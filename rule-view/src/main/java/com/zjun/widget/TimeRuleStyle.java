@@ -0,0 +1,120 @@
+package com.zjun.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.Nullable;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+/**
+ * TimeRuleStyle
+ *
+ * {@link TimeRuleView}的样式：颜色、尺寸，以及由样式决定的画笔、文字宽度、指针形状与默认的缩放等级
+ *
+ * 思路：
+ *  - 列表中每行一个时间尺时（如每个摄像头一行），每个实例都解析属性、创建画笔与Path、计算缩放等级，创建与绑定都很慢，内存随行数增长
+ *  - 样式创建后不可变，相同样式的控件共享同一个对象：属性只解析一次，画笔、文字宽度、指针形状、缩放等级（及时间块合并间隔）只计算一次
+ *  - 可通过{@link #from(Context, AttributeSet)}创建，或取布局中第一个控件的{@link TimeRuleView#getStyle()}，
+ *    再用{@link TimeRuleView#newInstance(Context, TimeRuleStyle)}创建其他控件
+ *  - 共享的画笔只在主线程中使用：线条画笔每次使用前都会设置颜色、线宽与样式，文字画笔创建后不再修改
+ */
+public final class TimeRuleStyle {
+
+    final int bgColor;
+    final int gradationColor;
+    final float partHeight;
+    final int partColor;
+    final float gradationWidth;
+    final float secondLen;
+    final float minuteLen;
+    final float hourLen;
+    final int gradationTextColor;
+    final float gradationTextSize;
+    final float gradationTextGap;
+    final int indicatorColor;
+    final float indicatorTriangleSideLen;
+    final float indicatorWidth;
+
+    /**
+     * 线条画笔：刻度、时间块、指针
+     */
+    final Paint paint;
+    /**
+     * 数值画笔，创建后不再修改
+     */
+    final TextPaint textPaint;
+    /**
+     * 数值 "00:00" 的半宽
+     */
+    final float textHalfWidth;
+    /**
+     * 指针顶部的正三角形，顶边中点为 (0, 0)，绘制时平移到指针处
+     */
+    final Path trianglePath;
+    /**
+     * 默认候选间隔下的缩放等级，及各等级的时间块合并间隔
+     */
+    final TimeZoomLevels zoomLevels;
+    final int[] partMergeGaps;
+
+    /**
+     * 由属性创建样式
+     *
+     * @param attrs 布局中的属性，null 表示使用默认样式
+     */
+    public static TimeRuleStyle from(Context context, @Nullable AttributeSet attrs) {
+        final TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.TimeRuleView);
+        try {
+            return new TimeRuleStyle(context.getResources(), ta);
+        } finally {
+            ta.recycle();
+        }
+    }
+
+    TimeRuleStyle(Resources res, TypedArray ta) {
+        bgColor = ta.getColor(R.styleable.TimeRuleView_zjun_bgColor, Color.parseColor("#EEEEEE"));
+        gradationColor = ta.getColor(R.styleable.TimeRuleView_zjun_gradationColor, Color.GRAY);
+        partHeight = ta.getDimension(R.styleable.TimeRuleView_trv_partHeight, dp2px(res, 20));
+        partColor = ta.getColor(R.styleable.TimeRuleView_trv_partColor, Color.parseColor("#F58D24"));
+        gradationWidth = ta.getDimension(R.styleable.TimeRuleView_trv_gradationWidth, 1);
+        secondLen = ta.getDimension(R.styleable.TimeRuleView_trv_secondLen, dp2px(res, 3));
+        minuteLen = ta.getDimension(R.styleable.TimeRuleView_trv_minuteLen, dp2px(res, 5));
+        hourLen = ta.getDimension(R.styleable.TimeRuleView_trv_hourLen, dp2px(res, 10));
+        gradationTextColor = ta.getColor(R.styleable.TimeRuleView_trv_gradationTextColor, Color.GRAY);
+        gradationTextSize = ta.getDimension(R.styleable.TimeRuleView_trv_gradationTextSize, sp2px(res, 12));
+        gradationTextGap = ta.getDimension(R.styleable.TimeRuleView_trv_gradationTextGap, dp2px(res, 2));
+        indicatorTriangleSideLen = ta.getDimension(R.styleable.TimeRuleView_trv_indicatorTriangleSideLen, dp2px(res, 15));
+        indicatorWidth = ta.getDimension(R.styleable.TimeRuleView_zjun_indicatorLineWidth, dp2px(res, 1));
+        indicatorColor = ta.getColor(R.styleable.TimeRuleView_zjun_indicatorLineColor, Color.RED);
+
+        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setTextSize(gradationTextSize);
+        textPaint.setColor(gradationTextColor);
+        textHalfWidth = textPaint.measureText("00:00") * .5f;
+
+        final float halfSideLen = indicatorTriangleSideLen * .5f;
+        trianglePath = new Path();
+        trianglePath.moveTo(-halfSideLen, 0);
+        trianglePath.rLineTo(indicatorTriangleSideLen, 0);
+        trianglePath.rLineTo(-halfSideLen, (float) (Math.sin(Math.toRadians(60)) * halfSideLen));
+        trianglePath.close();
+
+        zoomLevels = TimeRuleView.createZoomLevels(res, TimeZoomLevels.DEFAULT_UNIT_SECONDS,
+                TimeZoomLevels.DEFAULT_LABEL_SECONDS, textHalfWidth);
+        partMergeGaps = TimeRuleView.calculatePartMergeGaps(zoomLevels);
+    }
+
+    static int dp2px(Resources res, float dp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, res.getDisplayMetrics());
+    }
+
+    private static int sp2px(Resources res, float sp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, res.getDisplayMetrics());
+    }
+}
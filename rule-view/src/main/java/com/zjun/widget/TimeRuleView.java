@@ -1,26 +1,27 @@
 package com.zjun.widget;
 
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.support.annotation.IntRange;
 import android.support.annotation.Nullable;
+import android.os.SystemClock;
 import android.text.TextPaint;
 import android.util.AttributeSet;
-import android.util.Log;
-import android.util.TypedValue;
 import android.view.MotionEvent;
-import android.view.ScaleGestureDetector;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
-import android.widget.Scroller;
 
-import java.lang.reflect.Field;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * TimeRuleView
@@ -30,6 +31,7 @@ import java.util.List;
  *
  * 功能：
  *  - 可选择一天（00:00 ~ 24:00）内的任一时刻，精确到秒级
+ *  - 也可设置任意的时间范围（epoch毫秒），连续滑动多天，如NVR的录像回放
  *  - 可显示多个时间块
  *  - 支持滑动及惯性滑动
  *  - 支持缩放时间间隔
@@ -37,13 +39,22 @@ import java.util.List;
  *
  * 思路：
  *  - 时间绘制思路参考{@link RuleView}
- *  - 时间缩放，采用缩放手势检测器 ScaleGestureDetector
+ *  - 时间缩放，采用双指缩放检测器{@link PinchDetector}，最小跨度可配置，不再反射修改 ScaleGestureDetector 的私有字段
  *  - 缩放的等级估算方式：进入默认比例为1，根据每隔所占的秒数与宽度，可估算出每个等级的宽度范围，再与默认等级对应的宽度相除，即可算出缩放比例
- *  - 惯性滑动，使用速度追踪器 VelocityTracker
- *  - 缩放与滑动之间的连续操作，ScaleGestureDetector 开始与结束的条件是第二个手指按下与松开，
+ *  - 惯性滑动，使用速度追踪器 VelocityTracker，滑动动画使用{@link RuleScroller}，到两端时越界回弹
+ *  - 缩放与滑动之间的连续操作，缩放开始与结束的条件是第二个手指按下与松开，
  *    所以onTouchEvent()中应该使用 getActionMasked()来监听第二个手指的 DOWN(ACTION_POINTER_DOWN) 与 UP(ACTION_POINTER_UP) 事件，
  *    MOVE 都是一样的
- *  - 时间块，由起始时间与终止时间组成，采用一个有序的集合来装入即可
+ *  - 时间块，由起始时间与终止时间组成，采用按列存储的有序集合{@link TimePartStore}，绘制时二分查找可见范围
+ *  - 绘制刻度时，与{@link RuleView}一样，只绘制控件宽度范围内的刻度，每帧的绘制量只与控件宽度有关
+ *  - 刻度数值使用预先生成的共享数值表{@link TimeLabels}，onDraw()中不创建对象
+ *  - 多天的时间范围，距离值会很大，float精度不够。所以距离值是相对于一个原点时间{@link #mOriginTime}的，
+ *    距离过大时，把原点移到当前时间（rebase），绘制与计算都只用到原点附近的小数值，第1天与第30天的开销、精度都一样
+ *  - 相同画笔的刻度、时间块，都放入可复用的float数组，每类只调用一次 Canvas.drawLines
+ *  - 可选的刻度层分块缓存{@link RuleTileCache}，按当前缩放比例缓存，滑动时只平移、拼接，缩放时清除
+ *  - 时间块也可来自数据源{@link TimePartDataSource}，按页在后台加载可见范围及两侧的数据，有什么画什么，不阻塞主线程
+ *  - 样式与由样式决定的画笔、文字宽度、缩放等级放在不可变的{@link TimeRuleStyle}中，列表中的多个控件可共享，
+ *    创建时不再解析属性；复用时调用{@link #reset()}后重新设置数据，不需要重新创建控件
  *
  * Author: Ralap
  * Description:
@@ -52,8 +63,40 @@ import java.util.List;
 public class TimeRuleView extends View {
 
     private static final boolean LOG_ENABLE = BuildConfig.DEBUG;
+    private static final String TAG = "TimeRuleView";
     public static final int MAX_TIME_VALUE = 24 * 3600;
-    
+    /**
+     * 数据源分页：默认每页6h，两侧各预取1页，最多缓存32页
+     */
+    private static final int DEFAULT_PAGE_TIME = 6 * 3600;
+    private static final int PREFETCH_PAGES = 1;
+    private static final int MAX_CACHED_PAGES = 32;
+    /**
+     * 距离值超过此值时，把原点移到当前时间，保证float精度
+     */
+    private static final float REBASE_DISTANCE = 1 << 12;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：dp
+     */
+    private static final int OVER_SCROLL_DP = 24;
+    /**
+     * 缩放比例的范围，缩放比例为1时，1min对应12dp
+     */
+    private static final float MIN_SCALE = 0.015f;
+    private static final float MAX_SCALE = 6f;
+    /**
+     * 相邻刻度的最小间距，单位：dp
+     */
+    private static final int MIN_TICK_GAP_DP = 3;
+    /**
+     * 相邻数值之间的最小留白，单位：dp
+     */
+    private static final int LABEL_PADDING_DP = 12;
+
+    /**
+     * 样式，可在多个控件间共享
+     */
+    private TimeRuleStyle mStyle;
     private int bgColor;
     /**
      * 刻度颜色
@@ -86,8 +129,13 @@ public class TimeRuleView extends View {
 
     /**
      * 当前时间，单位：s
+     * 一天模式下，为与 00:00 的秒数；时间范围模式下，为与起始时间{@link #mRangeStartMillis}的秒数
+     */
+    private @IntRange(from = 0) int currentTime;
+    /**
+     * 属性中设置的当前时间，重置时恢复
      */
-    private @IntRange(from = 0, to = MAX_TIME_VALUE) int currentTime;
+    private int mInitialTime;
     /**
      * 指针颜色
      */
@@ -102,42 +150,20 @@ public class TimeRuleView extends View {
     private float indicatorWidth;
     
     /**
-     * 最小单位对应的单位秒数值，一共四级: 10s、1min、5min、15min
-     * 与 {@link #mPerTextCounts} 和 {@link #mPerCountScaleThresholds} 对应的索引值
-     *
-     * 可以组合优化成数组
+     * 缩放等级：各等级的最小单位秒数值、数值显示间隔，根据屏幕密度与数值文字宽度计算
+     * @see TimeZoomLevels
      */
-    private static int[] mUnitSeconds = {
-            10,     10,     10,     10,
-            60,     60,
-            5*60,   5*60,
-            15 * 60, 15 * 60, 15 * 60, 15 * 60, 15 * 60, 15 * 60
-    };
-
+    private TimeZoomLevels mZoomLevels;
     /**
-     * 数值显示间隔。一共13级，第一级最大值，不包括
+     * 各缩放等级下，时间块的合并间隔（单位：s），与 {@link #mZoomLevels} 的等级对应
+     * 间隔小于1像素的相邻时间块会被合并绘制
      */
-    @SuppressWarnings("all")
-    private static int[] mPerTextCounts = {
-            60,         60,         2 * 60,     4 * 60, // 10s/unit: 最大值, 1min, 2min, 4min
-            5 * 60,     10 * 60, // 1min/unit: 5min, 10min
-            20 * 60,    30 * 60, // 5min/unit: 20min, 30min
-            3600,       2 * 3600,   3 * 3600,   4 * 3600,   5 * 3600,   6 * 3600 // 15min/unit
-    };
-
+    private int[] mPartMergeGaps;
     /**
-     * 与 {@link #mPerTextCounts} 对应的阈值，在此阈值与前一个阈值之间，则使用此阈值对应的间隔数值
-     * 如：1.5f 代表 4*60 对应的阈值，如果 mScale >= 1.5f && mScale < 1.8f，则使用 4*60
-     *
-     * 这些数值，都是估算出来的
+     * 自定义的候选刻度单位与数值间隔，null 表示使用样式中默认的缩放等级
      */
-    @SuppressWarnings("all")
-    private float[] mPerCountScaleThresholds = {
-            6f,     3.6f,   1.8f,   1.5f, // 10s/unit: 最大值, 1min, 2min, 4min
-            0.8f,     0.4f,   // 1min/unit: 5min, 10min
-            0.25f,  0.125f, // 5min/unit: 20min, 30min
-            0.07f,  0.04f,  0.03f,  0.025f, 0.02f,  0.015f // 15min/unit: 1h, 2h, 3h, 4h, 5h, 6h
-    };
+    private int[] mZoomUnitSeconds;
+    private int[] mZoomLabelSeconds;
     /**
      * 默认mScale为1
      */
@@ -145,45 +171,81 @@ public class TimeRuleView extends View {
     /**
      * 1s对应的间隔，比较好估算
      */
-    private final float mOneSecondGap = dp2px(12) / 60f;
+    private final float mOneSecondGap = oneSecondGap(getResources());
     /**
      * 当前最小单位秒数值对应的间隔
      */
-    private float mUnitGap = mOneSecondGap * 60;
+    private float mUnitGap;
     /**
-     * 默认索引值
+     * 当前缩放等级的索引值
      */
-    private int mPerTextCountIndex = 4;
+    private int mPerTextCountIndex;
     /**
-     * 一格代表的秒数。默认1min
+     * 一格代表的秒数
      */
-    private int mUnitSecond = mUnitSeconds[mPerTextCountIndex];
+    private int mUnitSecond;
     
     /**
      * 数值文字宽度的一半：时间格式为“00:00”，所以长度固定
      */
-    private final float mTextHalfWidth;
+    private float mTextHalfWidth;
 
     private final int SCROLL_SLOP;
     private final int MIN_VELOCITY;
     private final int MAX_VELOCITY;
     
     /**
-     * 当前时间与 00:00 的距离值
+     * 是否为时间范围模式。否则为一天模式（00:00 ~ 24:00）
+     */
+    private boolean isRangeMode;
+    /**
+     * 时间范围模式下的起始时间，单位：ms
+     */
+    private long mRangeStartMillis;
+    /**
+     * 最大时间值，单位：s。一天模式下为{@link #MAX_TIME_VALUE}
+     */
+    private int mMaxTime = MAX_TIME_VALUE;
+    /**
+     * 时间范围模式下，时间值与本地时间的换算，用于对齐刻度与数值。一天模式下为null
+     */
+    private LocalTimeAlignment mLocalTime;
+    /**
+     * 距离的原点对应的时间值，单位：s
+     */
+    private int mOriginTime;
+    /**
+     * 当前时间与原点时间{@link #mOriginTime}的距离值
      */
     private float mCurrentDistance;
+    /**
+     * 惯性滑动时，滑动器上一次的位置。滑动器只提供相对于开始位置的偏移，不受原点移动的影响
+     */
+    private int mLastScrollX;
 
 
+    /**
+     * 画笔与指针形状，来自样式，可能与其他控件共享
+     */
     private Paint mPaint;
     private TextPaint mTextPaint;
+    /**
+     * 批量绘制：刻度（时、分、秒刻度只是长度不同，画笔一样，所以放在同一批）、时间块
+     */
+    private final LineBatch mTickLines = new LineBatch();
+    private final LineBatch mPartLines = new LineBatch();
     private Path mTrianglePath;
-    private Scroller mScroller;
+    private RuleScroller mScroller;
+    /**
+     * 惯性滑动时两端可越界的距离，单位：px
+     */
+    private int mOverScrollDistance;
     private VelocityTracker mVelocityTracker;
 
     /**
-     * 缩放手势检测器
+     * 双指缩放检测器
      */
-    private ScaleGestureDetector mScaleGestureDetector;
+    private PinchDetector mPinchDetector;
 
     private int mWidth, mHeight;
     private int mHalfWidth;
@@ -193,13 +255,91 @@ public class TimeRuleView extends View {
     private boolean isMoving;
     private boolean isScaling;
 
-    private List<TimePart> mTimePartList;
+    /**
+     * 时间块集合：有序、已合并
+     */
+    private final TimePartStore mTimeParts = new TimePartStore();
     private OnTimeChangedListener mListener;
+    /**
+     * 刻度布局：可见刻度的位置与类型
+     */
+    private final RuleLayout mLayout = new RuleLayout();
+    /**
+     * 刻度层的分块绘制缓存，null 表示不使用。只对当前缩放比例有效
+     */
+    private RuleTileCache mTileCache;
+    private RuleTileCache.TileRenderer mTileRenderer;
+    /**
+     * 绘制统计，null 表示未开启
+     */
+    private RuleMetrics mMetrics;
+    private RuleMetrics.OnFrameMetricsListener mMetricsListener;
+    /**
+     * 时间块数据源的分页加载器
+     */
+    private TimePartPager mTimePartPager;
 
     public interface OnTimeChangedListener{
         void onTimeChanged(int newTimeValue);
     }
 
+    /**
+     * 时间停止变化监听：惯性滑动结束，或手指抬起且没有惯性滑动时回调一次
+     */
+    public interface OnTimeSettledListener {
+        void onTimeSettled(int timeValue);
+    }
+
+    private OnTimeSettledListener mSettledListener;
+    /**
+     * 时间变化的回调合并到下一帧
+     */
+    private final FrameDispatcher mTimeDispatcher = new FrameDispatcher(new Runnable() {
+        @Override
+        public void run() {
+            flushTimeChanged();
+        }
+    });
+    /**
+     * 上次回调的时间，未回调时为 -1
+     */
+    private int mDispatchedTime = -1;
+    /**
+     * 本次手势中已回调停止的时间，按下时清除，避免惯性滑动与回弹各回调一次
+     */
+    private int mSettledTime = -1;
+    /**
+     * 在Executor中回调时间变化，null 表示在主线程中回调
+     */
+    private LatestValueDispatcher mAsyncTimeDispatcher;
+
+    /**
+     * 拖动时间轴控制播放器的监听，所有方法都在主线程中回调
+     */
+    public interface OnScrubListener {
+        /**
+         * 预览位置：滑动时每帧最多回调一次，应只做轻量的操作，如更新预览图、进度文字
+         */
+        void onScrubPreview(int timeValue);
+
+        /**
+         * 请求seek：按设置的间隔限流，只回调最新的时间，可用于关键帧seek
+         */
+        void onScrubSeek(int timeValue);
+
+        /**
+         * 停止：惯性滑动结束，或手指抬起且没有惯性滑动时回调，可用于精确seek
+         */
+        void onScrubSettled(int timeValue);
+    }
+
+    private OnScrubListener mScrubListener;
+    private SeekThrottle mSeekThrottle;
+    /**
+     * 按下时是否停止了惯性滑动
+     */
+    private boolean isFlingStopped;
+
     /**
      * 时间片段
      */
@@ -226,13 +366,24 @@ public class TimeRuleView extends View {
     }
 
     public TimeRuleView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        this(context, attrs, defStyleAttr, null);
+    }
+
+    /**
+     * 使用共享的样式创建，不解析属性，适合列表中的多个控件
+     *
+     * @param style 样式，null 表示使用默认样式
+     */
+    public static TimeRuleView newInstance(Context context, @Nullable TimeRuleStyle style) {
+        return new TimeRuleView(context, null, 0, style);
+    }
+
+    private TimeRuleView(Context context, @Nullable AttributeSet attrs, int defStyleAttr, @Nullable TimeRuleStyle style) {
         super(context, attrs, defStyleAttr);
-        initAttrs(context, attrs);
+        applyStyle(style != null ? style : initAttrs(context, attrs));
 
         init(context);
-        initScaleGestureDetector(context);
 
-        mTextHalfWidth = mTextPaint.measureText("00:00") * .5f;
         ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
         SCROLL_SLOP = viewConfiguration.getScaledTouchSlop();
         MIN_VELOCITY = viewConfiguration.getScaledMinimumFlingVelocity();
@@ -241,135 +392,225 @@ public class TimeRuleView extends View {
         calculateValues();
     }
 
-    private void initAttrs(Context context, AttributeSet attrs) {
+    /**
+     * 解析属性：样式部分创建为{@link TimeRuleStyle}，其余直接设置
+     */
+    private TimeRuleStyle initAttrs(Context context, AttributeSet attrs) {
         TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.TimeRuleView);
-        bgColor = ta.getColor(R.styleable.TimeRuleView_zjun_bgColor, Color.parseColor("#EEEEEE"));
-        gradationColor = ta.getColor(R.styleable.TimeRuleView_zjun_gradationColor, Color.GRAY);
-        partHeight = ta.getDimension(R.styleable.TimeRuleView_trv_partHeight, dp2px(20));
-        partColor = ta.getColor(R.styleable.TimeRuleView_trv_partColor, Color.parseColor("#F58D24"));
-        gradationWidth = ta.getDimension(R.styleable.TimeRuleView_trv_gradationWidth, 1);
-        secondLen = ta.getDimension(R.styleable.TimeRuleView_trv_secondLen, dp2px(3));
-        minuteLen = ta.getDimension(R.styleable.TimeRuleView_trv_minuteLen, dp2px(5));
-        hourLen = ta.getDimension(R.styleable.TimeRuleView_trv_hourLen, dp2px(10));
-        gradationTextColor = ta.getColor(R.styleable.TimeRuleView_trv_gradationTextColor, Color.GRAY);
-        gradationTextSize = ta.getDimension(R.styleable.TimeRuleView_trv_gradationTextSize, sp2px(12));
-        gradationTextGap = ta.getDimension(R.styleable.TimeRuleView_trv_gradationTextGap, dp2px(2));
+        final TimeRuleStyle style = new TimeRuleStyle(context.getResources(), ta);
         currentTime = ta.getInt(R.styleable.TimeRuleView_trv_currentTime, 0);
-        indicatorTriangleSideLen = ta.getDimension(R.styleable.TimeRuleView_trv_indicatorTriangleSideLen, dp2px(15));
-        indicatorWidth = ta.getDimension(R.styleable.TimeRuleView_zjun_indicatorLineWidth, dp2px(1));
-        indicatorColor = ta.getColor(R.styleable.TimeRuleView_zjun_indicatorLineColor, Color.RED);
+        mInitialTime = currentTime;
+        final boolean renderCacheEnabled = ta.getBoolean(R.styleable.TimeRuleView_zjun_renderCacheEnabled, false);
         ta.recycle();
+        if (renderCacheEnabled) {
+            setRenderCacheEnabled(true);
+        }
+        return style;
+    }
+
+    /**
+     * 使用样式中的颜色、尺寸与共享对象
+     */
+    private void applyStyle(TimeRuleStyle style) {
+        mStyle = style;
+        bgColor = style.bgColor;
+        gradationColor = style.gradationColor;
+        partHeight = style.partHeight;
+        partColor = style.partColor;
+        gradationWidth = style.gradationWidth;
+        secondLen = style.secondLen;
+        minuteLen = style.minuteLen;
+        hourLen = style.hourLen;
+        gradationTextColor = style.gradationTextColor;
+        gradationTextSize = style.gradationTextSize;
+        gradationTextGap = style.gradationTextGap;
+        indicatorColor = style.indicatorColor;
+        indicatorTriangleSideLen = style.indicatorTriangleSideLen;
+        indicatorWidth = style.indicatorWidth;
+        mPaint = style.paint;
+        mTextPaint = style.textPaint;
+        mTextHalfWidth = style.textHalfWidth;
+        mTrianglePath = style.trianglePath;
+        buildZoomLevels();
     }
 
     private void calculateValues() {
-        mCurrentDistance = currentTime / mUnitSecond * mUnitGap;
+        // 原点移到当前时间
+        mOriginTime = currentTime;
+        mCurrentDistance = 0;
     }
 
-    private void init(Context context) {
-        mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 1s对应的间隔：缩放比例为1时，1min对应12dp
+     */
+    private static float oneSecondGap(Resources res) {
+        return TimeRuleStyle.dp2px(res, 12) / 60f;
+    }
 
-        mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
-        mTextPaint.setTextSize(gradationTextSize);
-        mTextPaint.setColor(gradationTextColor);
+    /**
+     * 计算缩放等级：数值间距不小于文字宽度加留白，刻度间距不小于 {@link #MIN_TICK_GAP_DP}
+     */
+    static TimeZoomLevels createZoomLevels(Resources res, int[] unitSeconds, int[] labelSeconds, float textHalfWidth) {
+        final float oneSecondGap = oneSecondGap(res);
+        return new TimeZoomLevels(unitSeconds, labelSeconds, TimeRuleStyle.dp2px(res, MIN_TICK_GAP_DP),
+                textHalfWidth * 2 + TimeRuleStyle.dp2px(res, LABEL_PADDING_DP),
+                MIN_SCALE * oneSecondGap, MAX_SCALE * oneSecondGap);
+    }
 
-        mTrianglePath = new Path();
+    /**
+     * 使用样式中默认的缩放等级，或按自定义的候选间隔计算
+     */
+    private void buildZoomLevels() {
+        if (mZoomUnitSeconds == null) {
+            mZoomLevels = mStyle.zoomLevels;
+            mPartMergeGaps = mStyle.partMergeGaps;
+        } else {
+            mZoomLevels = createZoomLevels(getResources(), mZoomUnitSeconds, mZoomLabelSeconds, mTextHalfWidth);
+            mPartMergeGaps = calculatePartMergeGaps(mZoomLevels);
+        }
+        mScale = Math.max(mZoomLevels.getMinPixelsPerSecond() / mOneSecondGap,
+                Math.min(mZoomLevels.getMaxPixelsPerSecond() / mOneSecondGap, mScale));
+        updateZoomLevel();
+    }
 
-        mScroller = new Scroller(context);
+    /**
+     * 根据缩放比例，更新缩放等级与刻度间隔
+     */
+    private void updateZoomLevel() {
+        mPerTextCountIndex = mZoomLevels.indexOf(mScale * mOneSecondGap);
+        mUnitSecond = mZoomLevels.unitSecondsAt(mPerTextCountIndex);
+        mUnitGap = mScale * mOneSecondGap * mUnitSecond;
     }
 
-    private void initScaleGestureDetector(Context context) {
-        mScaleGestureDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.OnScaleGestureListener() {
+    /**
+     * 计算各缩放等级下时间块的合并间隔
+     * 每个等级取最小的缩放值（即阈值）计算1像素对应的秒数，同一等级内放大时，合并的间隔最多约为2像素
+     */
+    static int[] calculatePartMergeGaps(TimeZoomLevels zoomLevels) {
+        final int[] gaps = new int[zoomLevels.size()];
+        for (int i = 0; i < gaps.length; i++) {
+            gaps[i] = (int) (1 / zoomLevels.minPixelsPerSecondAt(i));
+        }
+        return gaps;
+    }
+
+    private void init(Context context) {
+        mScroller = new RuleScroller(context, new RuleScroller.Callback() {
+            @Override
+            public void onScrollFrame(int currX, boolean finished) {
+                onScrollFrame(currX, finished);
+            }
+        });
+        mOverScrollDistance = dp2px(OVER_SCROLL_DP);
+        initPinchDetector(context);
+    }
+
+    private void initPinchDetector(Context context) {
+        // 最小跨度：ScaleGestureDetector 默认27mm(>=sw600dp的32mm)，太大了，效果不好
+        final int minSpan = ViewConfiguration.get(context).getScaledTouchSlop();
+        mPinchDetector = new PinchDetector(minSpan, new PinchDetector.OnPinchListener() {
+            @Override
+            public void onPinchBegin(float focusX, float focusY) {
+                if (LOG_ENABLE) {
+                    RuleLog.d(TAG, "onPinchBegin...");
+                }
+                isScaling = true;
+            }
 
-            /**
-             * 缩放被触发(会调用0次或者多次)，
-             * 如果返回 true 则表示当前缩放事件已经被处理，检测器会重新积累缩放因子
-             * 返回 false 则会继续积累缩放因子。
-             */
             @Override
-            public boolean onScale(ScaleGestureDetector detector) {
-                final float scaleFactor = detector.getScaleFactor();
-                logD("onScale...focusX=%f, focusY=%f, scaleFactor=%f",
-                        detector.getFocusX(), detector.getFocusY(), scaleFactor);
+            public void onPinch(float scaleFactor, float focusX, float focusY) {
+                if (LOG_ENABLE) {
+                    RuleLog.d(TAG, "onPinch...focusX=%f, focusY=%f, scaleFactor=%f", focusX, focusY, scaleFactor);
+                }
 
-                final float maxScale = mPerCountScaleThresholds[0];
-                final float minScale = mPerCountScaleThresholds[mPerCountScaleThresholds.length - 1];
+                final float maxScale = mZoomLevels.getMaxPixelsPerSecond() / mOneSecondGap;
+                final float minScale = mZoomLevels.getMinPixelsPerSecond() / mOneSecondGap;
                 if (scaleFactor > 1 && mScale >= maxScale) {
                     // 已经放大到最大值
-                    return true;
+                    return;
                 } else if (scaleFactor < 1 && mScale <= minScale) {
                     // 已经缩小到最小值
-                    return true;
+                    return;
                 }
 
                 mScale *= scaleFactor;
                 mScale = Math.max(minScale, Math.min(maxScale, mScale));
-                mPerTextCountIndex = findScaleIndex(mScale);
-
-                mUnitSecond = mUnitSeconds[mPerTextCountIndex];
-                mUnitGap = mScale * mOneSecondGap * mUnitSecond;
-                logD("onScale: mScale=%f, mPerTextCountIndex=%d, mUnitSecond=%d, mUnitGap=%f",
-                        mScale, mPerTextCountIndex, mUnitSecond, mUnitGap);
+                updateZoomLevel();
+                clearRenderCache();
+                if (LOG_ENABLE) {
+                    RuleLog.d(TAG, "onPinch: mScale=%f, mPerTextCountIndex=%d, mUnitSecond=%d, mUnitGap=%f",
+                            mScale, mPerTextCountIndex, mUnitSecond, mUnitGap);
+                }
 
-                mCurrentDistance = (float) currentTime / mUnitSecond * mUnitGap;
+                calculateValues();
                 invalidate();
-                return true;
             }
 
             @Override
-            public boolean onScaleBegin(ScaleGestureDetector detector) {
-                logD("onScaleBegin...");
-                isScaling = true;
-                return true;
-            }
-
-            @Override
-            public void onScaleEnd(ScaleGestureDetector detector) {
+            public void onPinchEnd() {
                 isScaling = false;
-                logD("onScaleEnd...");
+                if (LOG_ENABLE) {
+                    RuleLog.d(TAG, "onPinchEnd...");
+                }
             }
         });
+    }
 
-        // 调整最小跨度值。默认值27mm(>=sw600dp的32mm)，太大了，效果不好
-        Class clazz = ScaleGestureDetector.class;
-        int newMinSpan = ViewConfiguration.get(context).getScaledTouchSlop();
-        try {
-            Field mMinSpanField = clazz.getDeclaredField("mMinSpan");
-            mMinSpanField.setAccessible(true);
-            mMinSpanField.set(mScaleGestureDetector, newMinSpan);
-            mMinSpanField.setAccessible(false);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * 二分法查找缩放值对应的索引值
-     */
-    private int findScaleIndex(float scale) {
-        final int size = mPerCountScaleThresholds.length;
-        int min = 0;
-        int max = size - 1;
-        int mid = (min + max) >> 1;
-        while (!(scale >= mPerCountScaleThresholds[mid] && scale < mPerCountScaleThresholds[mid - 1])) {
-            if (scale >= mPerCountScaleThresholds[mid - 1]) {
-                // 因为值往小区，index往大取，所以不能为mid -1
-                max = mid;
-            } else {
-                min = mid + 1;
+    /**
+     * 把触摸事件传给缩放检测器：移动时先传入历史采样，再传入当前位置，每个采样点计算一次
+     */
+    private void feedPinchDetector(MotionEvent event) {
+        final PinchDetector detector = mPinchDetector;
+        final int pointerCount = event.getPointerCount();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN: {
+                final int index = event.getActionIndex();
+                detector.pointerDown(event.getPointerId(index), event.getX(index), event.getY(index));
+                detector.sample();
+                break;
             }
-            mid = (min + max) >> 1;
-            if (min >= max) {
+            case MotionEvent.ACTION_MOVE: {
+                final int historySize = event.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    for (int i = 0; i < pointerCount; i++) {
+                        detector.move(event.getPointerId(i), event.getHistoricalX(i, h), event.getHistoricalY(i, h));
+                    }
+                    detector.sample();
+                }
+                for (int i = 0; i < pointerCount; i++) {
+                    detector.move(event.getPointerId(i), event.getX(i), event.getY(i));
+                }
+                detector.sample();
                 break;
             }
-            if (mid == 0) {
+            case MotionEvent.ACTION_POINTER_UP: {
+                final int upIndex = event.getActionIndex();
+                detector.pointerUp(event.getPointerId(upIndex));
+                // 还有其他手指时，补充到检测器中
+                for (int i = 0; i < pointerCount; i++) {
+                    if (i != upIndex) {
+                        detector.pointerDown(event.getPointerId(i), event.getX(i), event.getY(i));
+                    }
+                }
                 break;
             }
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                detector.cancel();
+                break;
+            default: break;
         }
-        return mid;
     }
 
+    /**
+     * 设置双指缩放的最小跨度，两指距离不小于此值时才开始缩放。默认为 touch slop
+     *
+     * @param minSpan 最小跨度，单位：px
+     */
+    public void setPinchMinSpan(float minSpan) {
+        mPinchDetector.setMinSpan(minSpan);
+    }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
@@ -392,11 +633,14 @@ public class TimeRuleView extends View {
         final int actionMasked = event.getActionMasked();
         final int action = event.getAction();
         final int pointerCount = event.getPointerCount();
-        logD("onTouchEvent: isScaling=%b, actionIndex=%d, pointerId=%d, actionMasked=%d, action=%d, pointerCount=%d",
-                isScaling, actionIndex, pointerId, actionMasked, action, pointerCount);
+        if (LOG_ENABLE) {
+            // action 由 actionMasked 与 actionIndex 组成，不再单独输出
+            RuleLog.d(TAG, "onTouchEvent: isScaling=%b, actionIndex=%d, pointerId=%d, actionMasked=%d, pointerCount=%d",
+                    isScaling ? 1 : 0, actionIndex, pointerId, actionMasked, pointerCount);
+        }
         final int x = (int) event.getX();
         final int y = (int) event.getY();
-        mScaleGestureDetector.onTouchEvent(event);
+        feedPinchDetector(event);
 
         if (mVelocityTracker == null) {
             mVelocityTracker = VelocityTracker.obtain();
@@ -406,9 +650,10 @@ public class TimeRuleView extends View {
             case MotionEvent.ACTION_DOWN:
                 isMoving = false;
                 mInitialX = x;
-                if (!mScroller.isFinished()) {
-                    mScroller.forceFinished(true);
-                }
+                isFlingStopped = !mScroller.isFinished();
+                mScroller.abort();
+                // 新的手势：停止回调一次，即使停在与上次相同的时间上
+                mSettledTime = -1;
                 break;
             case MotionEvent.ACTION_POINTER_DOWN:
                 // 只要第二手指按下，就禁止滑动
@@ -432,15 +677,23 @@ public class TimeRuleView extends View {
                 break;
             case MotionEvent.ACTION_UP:
                 if (isScaling || !isMoving) {
+                    settleStoppedFling();
                     break;
                 }
                 mVelocityTracker.computeCurrentVelocity(1000, MAX_VELOCITY);
                 final int xVelocity = (int) mVelocityTracker.getXVelocity();
                 if (Math.abs(xVelocity) >= MIN_VELOCITY) {
-                    // 惯性滑动
-                    final int maxDistance = (int) (MAX_TIME_VALUE / mUnitGap * mUnitGap);
-                    mScroller.fling((int) mCurrentDistance, 0, -xVelocity, 0, 0, maxDistance, 0, 0);
-                    invalidate();
+                    // 惯性滑动：滑动器从0开始，范围为当前位置到两端的距离
+                    final double secondGap = (double) mUnitGap / mUnitSecond;
+                    final int minX = (int) -(mOriginTime * secondGap + mCurrentDistance);
+                    final int maxX = (int) ((mMaxTime - mOriginTime) * secondGap - mCurrentDistance);
+                    mLastScrollX = 0;
+                    if (mMetrics != null) {
+                        mMetrics.onFlingStart();
+                    }
+                    mScroller.fling(0, -xVelocity, minX, maxX, mOverScrollDistance);
+                } else {
+                    dispatchTimeSettled();
                 }
                 break;
             case MotionEvent.ACTION_POINTER_UP:
@@ -449,6 +702,11 @@ public class TimeRuleView extends View {
                 int restIndex = actionIndex == 0 ? 1 : 0;
                 mInitialX = (int) event.getX(restIndex);
                 break;
+            case MotionEvent.ACTION_CANCEL:
+                isScaling = false;
+                isMoving = false;
+                settleStoppedFling();
+                break;
             default: break;
         }
         mLastX = x;
@@ -456,78 +714,252 @@ public class TimeRuleView extends View {
         return true;
     }
 
-    private void computeTime() {
-        // 不用转float，肯定能整除
-        float maxDistance = MAX_TIME_VALUE / mUnitSecond * mUnitGap;
-        // 限定范围
-        mCurrentDistance = Math.min(maxDistance, Math.max(0, mCurrentDistance));
-        currentTime = (int) (mCurrentDistance / mUnitGap * mUnitSecond);
-        if (mListener != null) {
-            mListener.onTimeChanged(currentTime);
+    /**
+     * 按下停止了惯性滑动，抬起时没有滑动：也算停止。可能停在了越界回弹的中途，此时回弹到范围内，回弹结束时再回调停止
+     */
+    private void settleStoppedFling() {
+        if (!isFlingStopped) {
+            return;
         }
+        isFlingStopped = false;
+        // 滑动器从0开始，范围为当前位置到两端的距离
+        final double secondGap = (double) mUnitGap / mUnitSecond;
+        final int minX = (int) -(mOriginTime * secondGap + mCurrentDistance);
+        final int maxX = (int) ((mMaxTime - mOriginTime) * secondGap - mCurrentDistance);
+        mLastScrollX = 0;
+        if (!mScroller.springBack(0, minX, maxX)) {
+            computeTime();
+            dispatchTimeSettled();
+        }
+    }
+
+    private void computeTime() {
+        final float secondGap = mUnitGap / mUnitSecond;
+        // 限定范围：[0, mMaxTime]
+        final float minDistance = -mOriginTime * secondGap;
+        final float maxDistance = (mMaxTime - mOriginTime) * secondGap;
+        mCurrentDistance = Math.min(maxDistance, Math.max(minDistance, mCurrentDistance));
+        updateTime();
+        dispatchTimeChanged();
         invalidate();
     }
 
+    /**
+     * 根据距离计算时间，不限定距离：越界回弹时时间为端点值
+     */
+    private void updateTime() {
+        final float secondGap = mUnitGap / mUnitSecond;
+        currentTime = mOriginTime + (int) Math.floor(mCurrentDistance / secondGap);
+        currentTime = Math.min(mMaxTime, Math.max(0, currentTime));
+        // 距离过大，移动原点
+        if (Math.abs(mCurrentDistance) > REBASE_DISTANCE) {
+            mCurrentDistance -= (currentTime - mOriginTime) * secondGap;
+            mOriginTime = currentTime;
+        }
+    }
+
+    /**
+     * 请求回调时间变化：合并到下一帧，一帧最多回调一次
+     */
+    private void dispatchTimeChanged() {
+        if (mListener != null || mScrubListener != null) {
+            mTimeDispatcher.schedule();
+        }
+    }
+
+    /**
+     * 立即回调时间变化，时间未变化时不回调。开启统计时记录回调耗时
+     */
+    private void flushTimeChanged() {
+        mTimeDispatcher.cancel();
+        if (currentTime == mDispatchedTime) {
+            return;
+        }
+        mDispatchedTime = currentTime;
+        if (mScrubListener != null) {
+            mScrubListener.onScrubPreview(currentTime);
+            mSeekThrottle.request(currentTime);
+        }
+        if (mListener == null) {
+            return;
+        }
+        final RuleMetrics metrics = mMetrics;
+        if (metrics == null) {
+            deliverTimeChanged(currentTime);
+            return;
+        }
+        final long startNanos = metrics.beginDispatch("TimeRuleView#onTimeChanged");
+        deliverTimeChanged(currentTime);
+        metrics.endDispatch(startNanos);
+    }
+
+    private void deliverTimeChanged(int time) {
+        if (mAsyncTimeDispatcher != null) {
+            mAsyncTimeDispatcher.post(time);
+        } else {
+            mListener.onTimeChanged(time);
+        }
+    }
+
+    /**
+     * 滑动停止：先回调未回调的变化，再回调停止。每次手势只回调一次
+     */
+    private void dispatchTimeSettled() {
+        flushTimeChanged();
+        if (mScrubListener != null) {
+            mSeekThrottle.settle(currentTime);
+        }
+        if (mSettledListener == null || currentTime == mSettledTime) {
+            return;
+        }
+        mSettledTime = currentTime;
+        mSettledListener.onTimeSettled(currentTime);
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
+        final RuleMetrics metrics = mMetrics;
+        final long startNanos = metrics != null ? metrics.beginFrame("TimeRuleView#onDraw") : 0;
         // 背景
         canvas.drawColor(bgColor);
 
-        // 刻度
-        drawRule(canvas);
+        // 刻度：与时间0的绝对距离。使用缓存时，只拼接可见的块；缩放过程中刻度一直在变，不使用缓存
+        final double leftDistance = mOriginTime * (double) (mUnitGap / mUnitSecond) + mCurrentDistance - mHalfWidth;
+        if (mTileCache != null && !isScaling) {
+            mTileCache.draw(canvas, leftDistance, mWidth, mHeight, bgColor, mTileRenderer);
+        } else {
+            drawRule(canvas, leftDistance, mWidth);
+        }
 
         // 时间段
         drawTimeParts(canvas);
 
         // 当前时间指针
         drawTimeIndicator(canvas);
+        if (metrics != null) {
+            metrics.endFrame(startNanos);
+            if (mMetricsListener != null) {
+                mMetricsListener.onFrameMetrics(metrics);
+            }
+        }
     }
 
-    @Override
-    public void computeScroll() {
-        if (mScroller.computeScrollOffset()) {
-            mCurrentDistance = mScroller.getCurrX();
+    /**
+     * 滑动动画的每一帧：更新一次位置，最多回调一次监听，请求一次重绘
+     */
+    private void onScrollFrame(int currX, boolean finished) {
+        if (mMetrics != null) {
+            mMetrics.onFlingFrame();
+        }
+        mCurrentDistance += currX - mLastScrollX;
+        mLastScrollX = currX;
+        if (finished) {
+            // 回弹结束时消除浮点误差
             computeTime();
+            dispatchTimeSettled();
+            return;
         }
+        updateTime();
+        flushTimeChanged();
+        invalidate();
     }
 
     /**
      * 绘制刻度
+     *
+     * @param leftDistance 画布 x=0 处与时间0的绝对距离，使用double，多天时也不损失精度
+     * @param width        绘制宽度
      */
-    private void drawRule(Canvas canvas) {
+    private void drawRule(Canvas canvas, double leftDistance, int width) {
         // 移动画布坐标系
         canvas.save();
         canvas.translate(0, partHeight);
         mPaint.setColor(gradationColor);
         mPaint.setStrokeWidth(gradationWidth);
 
-        // 刻度
-        int start = 0;
-        float offset = mHalfWidth - mCurrentDistance;
-        final int perTextCount = mPerTextCounts[mPerTextCountIndex];
-        while (start <= MAX_TIME_VALUE) {
-            // 刻度
-            if (start % 3600 == 0) {
+        // 为了绘制性能，只绘制控件宽度范围内的刻度。两侧各扩展2个单位，再加上数值文字的半宽，避免两侧数值突变
+        final int expendUnits = 2 + (int) Math.ceil(mTextHalfWidth / mUnitGap);
+        final LineBatch tickLines = mTickLines;
+        tickLines.reset();
+        int labelCount;
+        final LocalTimeAlignment localTime = mLocalTime;
+        if (localTime == null) {
+            labelCount = drawTicks(canvas, leftDistance, width, expendUnits, 0, mMaxTime, 0);
+        } else {
+            // 夏令时切换处偏移变化：按偏移分段，每段按自己的偏移对齐，数值仍从本地的 00:00 开始
+            final double secondsPerPx = mUnitSecond / (double) mUnitGap;
+            final long expend = (long) expendUnits * mUnitSecond;
+            final int leftTime = (int) Math.max(0, Math.floor(leftDistance * secondsPerPx) - expend);
+            final int rightTime = (int) Math.min(mMaxTime, Math.ceil((leftDistance + width) * secondsPerPx) + expend);
+            int from = 0;
+            int alignment = localTime.alignmentAt(Math.min(leftTime, rightTime));
+            labelCount = 0;
+            while (true) {
+                final int change = localTime.nextChange(Math.max(from, leftTime), rightTime);
+                labelCount += drawTicks(canvas, leftDistance, width, expendUnits, from,
+                        change < 0 ? mMaxTime : change - 1, alignment);
+                if (change < 0) {
+                    break;
+                }
+                from = change;
+                alignment = localTime.alignmentAt(change);
+            }
+        }
+        // 一次绘制所有刻度
+        tickLines.draw(canvas, mPaint);
+        canvas.restore();
+        if (mMetrics != null) {
+            mMetrics.addTicks(tickLines.size());
+            mMetrics.addLabels(labelCount);
+        }
+    }
+
+    /**
+     * 计算 [minTime, maxTime] 内可见的刻度，刻度放入批量绘制中，数值直接绘制
+     * 刻度对齐到本地时间：按 时间值 + 偏移 分类，整点为时刻度，整分为分刻度
+     *
+     * @param alignment 时间值与本地时间（一天内的秒数）的偏移
+     * @return 数值的个数
+     */
+    private int drawTicks(Canvas canvas, double leftDistance, int width, int expendUnits,
+                          int minTime, int maxTime, int alignment) {
+        final RuleLayout layout = mLayout;
+        layout.setRange(minTime, maxTime);
+        layout.setGrid(0, -alignment, mUnitSecond, mUnitGap);
+        layout.setClassification(alignment, 60, 3600, mZoomLevels.labelSecondsAt(mPerTextCountIndex));
+        layout.setExpendUnits(expendUnits);
+        final int count = layout.layout(leftDistance, width);
+        final char[] labels = TimeLabels.table();
+        final LineBatch tickLines = mTickLines;
+        int labelCount = 0;
+        for (int i = 0; i < count; i++) {
+            final float offset = layout.positionAt(i);
+            // 刻度：先放入批量绘制中
+            final int type = layout.typeAt(i);
+            if (type == RuleLayout.TICK_LONG) {
                 // 时刻度
-                canvas.drawLine(offset, 0, offset, hourLen, mPaint);
-            } else if (start % 60 == 0) {
+                tickLines.add(offset, 0, offset, hourLen);
+            } else if (type == RuleLayout.TICK_MIDDLE) {
                 // 分刻度
-                canvas.drawLine(offset, 0, offset, minuteLen, mPaint);
-            } else{
+                tickLines.add(offset, 0, offset, minuteLen);
+            } else {
                 // 秒刻度
-                canvas.drawLine(offset, 0, offset, secondLen, mPaint);
+                tickLines.add(offset, 0, offset, secondLen);
             }
 
             // 时间数值
-            if (start % perTextCount == 0) {
-                String text = formatTimeHHmm(start);
-                canvas.drawText(text, offset - mTextHalfWidth, hourLen + gradationTextGap + gradationTextSize, mTextPaint);
+            if (layout.hasLabelAt(i)) {
+                // 使用共享的数值表，不创建字符串。多天时，每天从 00:00 开始
+                int dayTime = (int) layout.valueAt(i) + alignment;
+                if (isRangeMode) {
+                    dayTime %= MAX_TIME_VALUE;
+                }
+                canvas.drawText(labels, TimeLabels.indexOf(dayTime), TimeLabels.LABEL_LENGTH,
+                        offset - mTextHalfWidth, hourLen + gradationTextGap + gradationTextSize, mTextPaint);
+                labelCount++;
             }
-
-            start += mUnitSecond;
-            offset += mUnitGap;
         }
-        canvas.restore();
+        return labelCount;
     }
 
     /**
@@ -539,18 +971,13 @@ public class TimeRuleView extends View {
         mPaint.setStrokeWidth(indicatorWidth);
         canvas.drawLine(mHalfWidth, 0, mHalfWidth, mHeight, mPaint);
 
-        // 正三角形
-        if (mTrianglePath.isEmpty()) {
-            //
-            final float halfSideLen = indicatorTriangleSideLen * .5f;
-            mTrianglePath.moveTo(mHalfWidth - halfSideLen, 0);
-            mTrianglePath.rLineTo(indicatorTriangleSideLen, 0);
-            mTrianglePath.rLineTo(-halfSideLen, (float) (Math.sin(Math.toRadians(60)) * halfSideLen));
-            mTrianglePath.close();
-        }
+        // 正三角形：共享的Path以指针为0点，平移后绘制
         mPaint.setStrokeWidth(1);
         mPaint.setStyle(Paint.Style.FILL);
+        canvas.save();
+        canvas.translate(mHalfWidth, 0);
         canvas.drawPath(mTrianglePath, mPaint);
+        canvas.restore();
         mPaint.setStyle(Paint.Style.STROKE);
     }
 
@@ -558,20 +985,60 @@ public class TimeRuleView extends View {
      * 绘制时间段
      */
     private void drawTimeParts(Canvas canvas) {
-        if (mTimePartList == null) {
+        final TimePartPager pager = mTimePartPager;
+        if (mTimeParts.size() == 0 && pager == null) {
             return;
         }
         // 不用矩形，直接使用直线绘制
         mPaint.setStrokeWidth(partHeight);
         mPaint.setColor(partColor);
+        final float secondGap = mUnitGap / mUnitSecond;
+        // 可见的时间范围，只绘制此范围内的时间块
+        final int leftTime = mOriginTime + (int) Math.floor((mCurrentDistance - mHalfWidth) / secondGap) - 1;
+        final int rightTime = mOriginTime + (int) Math.ceil((mCurrentDistance + mHalfWidth) / secondGap) + 1;
+        mPartLines.reset();
+        addTimePartLines(mTimeParts, leftTime, rightTime, secondGap);
+
+        if (pager != null) {
+            // 数据源：只绘制已加载的页，未加载的页在后台加载，加载完成后再刷新
+            final int firstPage = pager.pageOf(Math.max(0, leftTime));
+            final int lastPage = pager.pageOf(Math.min(mMaxTime, rightTime));
+            if (!pager.request(firstPage, lastPage, pager.pageOf(mMaxTime)) && LOG_ENABLE) {
+                RuleLog.d(TAG, "drawTimeParts: too many visible pages, firstPage=%d, lastPage=%d", firstPage, lastPage);
+            }
+            for (int page = firstPage; page <= lastPage; page++) {
+                final TimePartStore store = pager.getPage(page);
+                if (store != null) {
+                    addTimePartLines(store, leftTime, rightTime, secondGap);
+                }
+            }
+        }
+        // 一次绘制所有时间块
+        mPartLines.draw(canvas, mPaint);
+        if (mMetrics != null) {
+            mMetrics.addTimeParts(mPartLines.size());
+        }
+    }
+
+    /**
+     * 把时间块集合中可见范围内的时间块，放入批量绘制中
+     */
+    private void addTimePartLines(TimePartStore store, int leftTime, int rightTime, float secondGap) {
+        // 使用当前缩放等级下合并后的时间块
+        final TimePartStore timeParts = store.coalesce(mPerTextCountIndex, mPartMergeGaps[mPerTextCountIndex]);
+        final int size = timeParts.size();
         float start, end;
         final float halfPartHeight = partHeight * .5f;
-        final float secondGap = mUnitGap / mUnitSecond;
-        for (int i = 0, size = mTimePartList.size(); i < size; i++) {
-            TimePart timePart = mTimePartList.get(i);
-            start = mHalfWidth - mCurrentDistance + timePart.startTime * secondGap;
-            end = mHalfWidth - mCurrentDistance + timePart.endTime * secondGap;
-            canvas.drawLine(start, halfPartHeight, end, halfPartHeight, mPaint);
+        final float originOffset = mHalfWidth - mCurrentDistance;
+        for (int i = timeParts.indexOfFirstEndAtOrAfter(leftTime); i < size; i++) {
+            final int startTime = timeParts.getStartTime(i);
+            if (startTime > rightTime) {
+                break;
+            }
+            // 超出可见范围的部分截掉，只使用与原点的相对距离
+            start = originOffset + (Math.max(startTime, leftTime) - mOriginTime) * secondGap;
+            end = originOffset + (Math.min(timeParts.getEndTime(i), rightTime) - mOriginTime) * secondGap;
+            mPartLines.add(start, halfPartHeight, end, halfPartHeight);
         }
     }
 
@@ -581,21 +1048,7 @@ public class TimeRuleView extends View {
      * @return 格式化后的字符串，eg：3600 to 01:00
      */
     public static String formatTimeHHmm(@IntRange(from = 0, to = MAX_TIME_VALUE) int timeValue) {
-        if (timeValue < 0){
-            timeValue=0;
-        }
-        int hour = timeValue / 3600;
-        int minute = timeValue % 3600 / 60;
-        StringBuilder sb = new StringBuilder();
-        if (hour < 10) {
-            sb.append('0');
-        }
-        sb.append(hour).append(':');
-        if (minute < 10) {
-            sb.append('0');
-        }
-        sb.append(minute);
-        return sb.toString();
+        return TimeLabels.formatHHmm(timeValue);
     }
 
     /**
@@ -604,69 +1057,515 @@ public class TimeRuleView extends View {
      * @return 格式化后的字符串，eg：3600 to 01:00:00
      */
     public static String formatTimeHHmmss(@IntRange(from = 0, to = MAX_TIME_VALUE) int timeValue) {
-        int hour = timeValue / 3600;
-        int minute = timeValue % 3600 / 60;
-        int second = timeValue % 3600 % 60;
-        StringBuilder sb = new StringBuilder();
+        return TimeLabels.formatHHmmss(timeValue);
+    }
 
-        if (hour < 10) {
-            sb.append('0');
+    private int dp2px(float dp) {
+        return TimeRuleStyle.dp2px(getResources(), dp);
+    }
+
+
+    /**
+     * 设置时间变化监听事件
+     * @param listener 监听回调，滑动时每帧最多回调一次，时间不变时不回调
+     */
+    public void setOnTimeChangedListener(OnTimeChangedListener listener) {
+        setOnTimeChangedListener(listener, null);
+    }
+
+    /**
+     * 设置时间变化监听事件，在指定的Executor中回调。适用于较重的操作，如视频seek、查询数据库
+     *
+     * 只回调最新的时间：回调未执行完时，期间的中间值直接丢弃，不会排队；主线程不会等待回调。
+     * 同一时间最多执行一个回调。与{@link OnTimeSettledListener}（主线程）之间的先后顺序不保证
+     *
+     * @param listener 监听回调
+     * @param executor 回调所在的Executor，其 execute() 不应阻塞。为 null 时在主线程中回调
+     */
+    public void setOnTimeChangedListener(final OnTimeChangedListener listener, @Nullable Executor executor) {
+        this.mListener = listener;
+        if (mAsyncTimeDispatcher != null) {
+            mAsyncTimeDispatcher.cancel();
         }
-        sb.append(hour).append(':');
+        if (listener == null || executor == null) {
+            mAsyncTimeDispatcher = null;
+            return;
+        }
+        mAsyncTimeDispatcher = new LatestValueDispatcher(executor, new LatestValueDispatcher.Consumer() {
+            @Override
+            public void accept(int value) {
+                listener.onTimeChanged(value);
+            }
+        });
+    }
 
-        if (minute < 10) {
-            sb.append('0');
+    /**
+     * 设置拖动时间轴控制播放器的监听：每帧回调预览位置，按间隔限流回调seek，停止时回调精确seek
+     * 只有手指拖动与惯性滑动才会回调，{@link #setCurrentTime(int)}不会回调
+     *
+     * @param listener           监听回调，null 表示取消
+     * @param seekIntervalMillis 两次{@link OnScrubListener#onScrubSeek(int)}的最小间隔，单位：ms。0 表示不限流
+     */
+    public void setOnScrubListener(OnScrubListener listener, long seekIntervalMillis) {
+        if (mSeekThrottle != null) {
+            mSeekThrottle.cancel();
         }
-        sb.append(minute);
-        sb.append(':');
+        this.mScrubListener = listener;
+        if (listener == null) {
+            mSeekThrottle = null;
+            return;
+        }
+        mSeekThrottle = new SeekThrottle(seekIntervalMillis, new SeekThrottle.Clock() {
+            @Override
+            public long uptimeMillis() {
+                return SystemClock.uptimeMillis();
+            }
+        }, new SeekThrottle.Scheduler() {
+            @Override
+            public boolean postDelayed(Runnable action, long delayMillis) {
+                return TimeRuleView.this.postDelayed(action, delayMillis);
+            }
 
-        if (second < 10) {
-            sb.append('0');
+            @Override
+            public boolean removeCallbacks(Runnable action) {
+                return TimeRuleView.this.removeCallbacks(action);
+            }
+        }, new SeekThrottle.Target() {
+            @Override
+            public void onSeek(int value, boolean precise) {
+                if (mScrubListener == null) {
+                    return;
+                }
+                if (precise) {
+                    mScrubListener.onScrubSettled(value);
+                } else {
+                    mScrubListener.onScrubSeek(value);
+                }
+            }
+        });
+    }
+
+    /**
+     * 设置时间停止变化监听
+     * @param listener 惯性滑动结束，或手指抬起且没有惯性滑动时回调一次
+     */
+    public void setOnTimeSettledListener(OnTimeSettledListener listener) {
+        this.mSettledListener = listener;
+    }
+
+    /**
+     * 设置时间块（段）集合
+     * @param timePartList 时间块集合
+     */
+    public void setTimePartList(List<TimePart> timePartList) {
+        if (timePartList == null) {
+            mTimeParts.clear();
+            postInvalidate();
+            return;
         }
-        sb.append(second);
-        return sb.toString();
+        final int size = timePartList.size();
+        final int[] startTimes = new int[size];
+        final int[] endTimes = new int[size];
+        for (int i = 0; i < size; i++) {
+            TimePart timePart = timePartList.get(i);
+            startTimes[i] = timePart.startTime;
+            endTimes[i] = timePart.endTime;
+        }
+        setTimeParts(startTimes, endTimes, size);
     }
 
-    private int dp2px(float dp) {
-        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics());
+    /**
+     * 设置时间块（段），使用基本类型数组，适合数量很多的情况
+     * 数组内容会被复制、排序，并合并重叠的时间块，之后可重复使用
+     *
+     * @param startTimes 起始时间集合，单位：s
+     * @param endTimes   结束时间集合，与起始时间一一对应
+     * @param count      时间块的个数
+     */
+    public void setTimeParts(int[] startTimes, int[] endTimes, int count) {
+        mTimeParts.set(startTimes, endTimes, count);
+        postInvalidate();
+    }
+
+    /**
+     * 追加时间块，适用于实时录像时不断增长的时间块，需在主线程调用
+     * 与最后一个时间块重叠或相接时延长它，否则添加新的时间块，均摊O(1)
+     * 只在变化的区域可见时，才刷新该区域
+     *
+     * @param startTime 起始时间，单位：s
+     * @param endTime   结束时间，必须不小于起始时间
+     */
+    public void appendTimePart(int startTime, int endTime) {
+        final int size = mTimeParts.size();
+        // 变化区域的左侧：延长时从原来的结束时间开始
+        final int changedStart = size > 0 ? Math.min(startTime, mTimeParts.getEndTime(size - 1)) : startTime;
+        if (!mTimeParts.append(startTime, endTime)) {
+            invalidate();
+            return;
+        }
+        invalidateTimeRange(changedStart, endTime);
     }
 
-    private int sp2px(float sp) {
-        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getResources().getDisplayMetrics());
+    /**
+     * 追加时间块（epoch毫秒），只在时间范围模式下使用，需在主线程调用
+     * @see #appendTimePart(int, int)
+     */
+    public void appendTimePart(long startMillis, long endMillis) {
+        final long start = (startMillis - mRangeStartMillis) / 1000;
+        final long end = (endMillis - mRangeStartMillis) / 1000;
+        if (end < 0 || start > mMaxTime) {
+            return;
+        }
+        appendTimePart((int) Math.max(0, start), (int) Math.min(mMaxTime, end));
     }
 
-    @SuppressWarnings("all")
-    private void logD(String format, Object... args) {
-        if (LOG_ENABLE) {
-            Log.d("MoneySelectRuleView", String.format("zjun@" + format, args));
+    /**
+     * 刷新时间范围在时间块区域中对应的部分，不可见时不刷新
+     */
+    private void invalidateTimeRange(int startTime, int endTime) {
+        final float secondGap = mUnitGap / mUnitSecond;
+        final float originOffset = mHalfWidth - mCurrentDistance;
+        final float left = originOffset + (startTime - mOriginTime) * secondGap;
+        final float right = originOffset + (endTime - mOriginTime) * secondGap;
+        if (right < 0 || left > mWidth) {
+            return;
         }
+        invalidate((int) Math.max(0, left) - 1, 0, (int) Math.min(mWidth, right) + 2, (int) Math.ceil(partHeight));
     }
 
     /**
-     * 设置时间变化监听事件
-     * @param listener 监听回调
+     * 设置缩放时可选的刻度单位与数值间隔。每个缩放比例下，自动选择数值不重叠的最小间隔，以及刻度不过密的最小单位
+     *
+     * @param unitSeconds  候选刻度单位，单位：s，如 {10, 60, 300}
+     * @param labelSeconds 候选数值间隔，单位：s，必须是60的倍数，如 {60, 300, 3600}
      */
-    public void setOnTimeChangedListener(OnTimeChangedListener listener) {
-        this.mListener = listener;
+    public void setZoomIntervals(int[] unitSeconds, int[] labelSeconds) {
+        // 先校验，再保存
+        createZoomLevels(getResources(), unitSeconds, labelSeconds, mTextHalfWidth);
+        mZoomUnitSeconds = unitSeconds.clone();
+        mZoomLabelSeconds = labelSeconds.clone();
+        // 时间块的合并结果按合并间隔缓存，间隔变化时自动重新合并
+        buildZoomLevels();
+        clearRenderCache();
+        calculateValues();
+        invalidate();
     }
 
     /**
-     * 设置时间块（段）集合
-     * @param timePartList 时间块集合
+     * 设置样式，可与其他控件共享同一个样式
+     * @see TimeRuleStyle
      */
-    public void setTimePartList(List<TimePart> timePartList) {
-        this.mTimePartList = timePartList;
+    public void setStyle(TimeRuleStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("The style must not be null");
+        }
+        if (style == mStyle) {
+            return;
+        }
+        applyStyle(style);
+        clearRenderCache();
+        calculateValues();
+        invalidate();
+    }
+
+    public TimeRuleStyle getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 重置为刚创建时的状态，用于复用控件（如RecyclerView的onBindViewHolder中），之后再设置新的数据
+     * 停止滑动，取消未回调的时间变化，清除时间块、数据源与时间范围，恢复默认缩放与属性中设置的当前时间。
+     * 样式、监听、自定义的缩放间隔与绘制缓存的开关保持不变
+     */
+    public void reset() {
+        mScroller.abort();
+        mTimeDispatcher.cancel();
+        if (mAsyncTimeDispatcher != null) {
+            mAsyncTimeDispatcher.cancel();
+        }
+        if (mSeekThrottle != null) {
+            mSeekThrottle.cancel();
+        }
+        mDispatchedTime = -1;
+        mSettledTime = -1;
+        isMoving = false;
+        isScaling = false;
+        isFlingStopped = false;
+        mPinchDetector.cancel();
+
+        isRangeMode = false;
+        mRangeStartMillis = 0;
+        mMaxTime = MAX_TIME_VALUE;
+        mLocalTime = null;
+        mTimeParts.clear();
+        if (mTimePartPager != null) {
+            mTimePartPager.clear();
+            mTimePartPager = null;
+        }
+
+        mScale = 1;
+        buildZoomLevels();
+        clearRenderCache();
+        currentTime = Math.min(mMaxTime, Math.max(0, mInitialTime));
+        calculateValues();
+        invalidate();
+    }
+
+    /**
+     * 设置是否使用刻度层的分块绘制缓存
+     * 开启后，滑动时只平移、拼接已缓存的刻度块，不再每帧重新绘制刻度与数值，但会占用一定内存（默认上限4MB）
+     * 缓存只对当前缩放比例有效，缩放时清除
+     */
+    public void setRenderCacheEnabled(boolean enabled) {
+        if (enabled == (mTileCache != null)) {
+            return;
+        }
+        if (enabled) {
+            mTileCache = new RuleTileCache(RuleTileCache.DEFAULT_TILE_WIDTH);
+            mTileRenderer = new RuleTileCache.TileRenderer() {
+                @Override
+                public void drawTile(Canvas canvas, double tileLeft, int tileWidth) {
+                    drawRule(canvas, tileLeft, tileWidth);
+                }
+            };
+        } else {
+            mTileCache.release();
+            mTileCache = null;
+            mTileRenderer = null;
+        }
         postInvalidate();
     }
 
+    /**
+     * 设置刻度层缓存的内存上限
+     * @param maxBytes 内存上限，单位：byte。至少会缓存一屏的块
+     */
+    public void setRenderCacheMaxBytes(int maxBytes) {
+        if (mTileCache != null) {
+            mTileCache.setMaxBytes(maxBytes);
+            postInvalidate();
+        }
+    }
+
+    private void clearRenderCache() {
+        if (mTileCache != null) {
+            mTileCache.clear();
+        }
+    }
+
+    /**
+     * 设置是否开启绘制统计，未开启时不产生开销
+     * @see RuleMetrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        if (enabled != (mMetrics != null)) {
+            mMetrics = enabled ? new RuleMetrics() : null;
+        }
+    }
+
+    /**
+     * 获取绘制统计
+     * @return 未开启时返回null
+     */
+    public RuleMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * 设置每帧的统计监听，开启统计后才会回调
+     */
+    public void setOnFrameMetricsListener(RuleMetrics.OnFrameMetricsListener listener) {
+        this.mMetricsListener = listener;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScroller.abort();
+        mTimeDispatcher.cancel();
+        if (mAsyncTimeDispatcher != null) {
+            mAsyncTimeDispatcher.cancel();
+        }
+        if (mSeekThrottle != null) {
+            mSeekThrottle.cancel();
+        }
+        if (mTileCache != null) {
+            mTileCache.release();
+        }
+    }
+
+    /**
+     * 设置时间块数据源，在默认的后台线程中加载
+     * @see #setTimePartDataSource(TimePartDataSource, Executor, int)
+     */
+    public void setTimePartDataSource(@Nullable TimePartDataSource dataSource) {
+        setTimePartDataSource(dataSource, dataSource == null ? null : LoaderExecutorHolder.EXECUTOR, DEFAULT_PAGE_TIME);
+    }
+
+    /**
+     * 设置时间块数据源，滑动时按页加载可见范围及两侧预取范围内的时间块
+     * 与{@link #setTimeParts(int[], int[], int)}等设置的时间块同时绘制
+     *
+     * @param dataSource 数据源，null 表示移除
+     * @param executor   加载数据的后台线程
+     * @param pageTime   每页的时长，单位：s
+     */
+    public void setTimePartDataSource(@Nullable TimePartDataSource dataSource, Executor executor, int pageTime) {
+        if (mTimePartPager != null) {
+            mTimePartPager.clear();
+            mTimePartPager = null;
+        }
+        if (dataSource != null) {
+            if (pageTime <= 0) {
+                throw new IllegalArgumentException(String.format("The pageTime of %d is invalid", pageTime));
+            }
+            mTimePartPager = new TimePartPager(dataSource, executor, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    post(command);
+                }
+            }, new TimePartPager.OnPageLoadedListener() {
+                @Override
+                public void onPageLoaded(int fromTime, int toTime) {
+                    invalidateTimeRange(fromTime, toTime);
+                }
+
+                @Override
+                public void onPageFailed(int fromTime, int toTime, RuntimeException e) {
+                    if (LOG_ENABLE) {
+                        RuleLog.d(TAG, "onPageFailed: fromTime=%d, toTime=%d", fromTime, toTime);
+                    }
+                }
+            }, pageTime, PREFETCH_PAGES, MAX_CACHED_PAGES);
+        }
+        postInvalidate();
+    }
+
+    /**
+     * 数据源变化时调用，清空已加载的页并重新加载
+     */
+    public void notifyTimePartDataSourceChanged() {
+        if (mTimePartPager != null) {
+            mTimePartPager.clear();
+            postInvalidate();
+        }
+    }
+
+    /**
+     * 默认的数据源加载线程，所有控件共享，懒加载
+     */
+    private static final class LoaderExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "TimeRuleView-loader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
     /**
      * 设置当前时间
-     * @param currentTime 当前时间
+     * @param currentTime 当前时间。时间范围模式下，为与起始时间的秒数
      */
-    public void setCurrentTime(@IntRange(from = 0, to = MAX_TIME_VALUE) int currentTime) {
-        this.currentTime = currentTime;
+    public void setCurrentTime(@IntRange(from = 0) int currentTime) {
+        this.currentTime = Math.min(mMaxTime, Math.max(0, currentTime));
         calculateValues();
         postInvalidate();
     }
+
+    /**
+     * 设置时间范围（epoch毫秒），进入时间范围模式，可连续滑动多天
+     * 刻度与数值按本地时区对齐，精确到秒级。已设置的时间块会被清空，需按新的范围重新设置
+     *
+     * @param startMillis 起始时间，单位：ms
+     * @param endMillis   结束时间，单位：ms
+     */
+    public void setTimeRange(long startMillis, long endMillis) {
+        final long rangeTime = (endMillis - startMillis) / 1000;
+        if (rangeTime <= 0 || rangeTime > Integer.MAX_VALUE - MAX_TIME_VALUE) {
+            throw new IllegalArgumentException(String.format("The time range is invalid: startMillis=%d, endMillis=%d",
+                    startMillis, endMillis));
+        }
+        mScroller.abort();
+        final long currentMillis = isRangeMode ? getCurrentTimeMillis() : startMillis;
+        isRangeMode = true;
+        mRangeStartMillis = startMillis;
+        mMaxTime = (int) rangeTime;
+        mLocalTime = new LocalTimeAlignment(startMillis, TimeZone.getDefault());
+        clearRenderCache();
+        mTimeParts.clear();
+        notifyTimePartDataSourceChanged();
+        setCurrentTimeMillis(currentMillis);
+    }
+
+    /**
+     * 清除时间范围，恢复到一天模式（00:00 ~ 24:00）
+     */
+    public void clearTimeRange() {
+        if (!isRangeMode) {
+            return;
+        }
+        mScroller.abort();
+        isRangeMode = false;
+        mRangeStartMillis = 0;
+        mMaxTime = MAX_TIME_VALUE;
+        mLocalTime = null;
+        clearRenderCache();
+        mTimeParts.clear();
+        notifyTimePartDataSourceChanged();
+        setCurrentTime(0);
+    }
+
+    /**
+     * 设置当前时间（epoch毫秒），只在时间范围模式下使用
+     * @param timeMillis 当前时间，单位：ms，超出时间范围时会被限定
+     */
+    public void setCurrentTimeMillis(long timeMillis) {
+        final long time = (timeMillis - mRangeStartMillis) / 1000;
+        setCurrentTime((int) Math.min(mMaxTime, Math.max(0, time)));
+    }
+
+    /**
+     * 获取当前时间（epoch毫秒）。一天模式下，为与 00:00 的毫秒数
+     */
+    public long getCurrentTimeMillis() {
+        return toTimeMillis(currentTime);
+    }
+
+    /**
+     * 把时间值（如{@link OnTimeChangedListener#onTimeChanged(int)}的回调值）转换为epoch毫秒
+     * @param timeValue 时间值，单位：s
+     * @return 对应的时间，单位：ms
+     */
+    public long toTimeMillis(int timeValue) {
+        return mRangeStartMillis + timeValue * 1000L;
+    }
+
+    /**
+     * 设置时间块（段），使用epoch毫秒，只在时间范围模式下使用
+     * 超出时间范围的部分会被截掉
+     *
+     * @param startMillis 起始时间集合，单位：ms
+     * @param endMillis   结束时间集合，与起始时间一一对应
+     * @param count       时间块的个数
+     */
+    public void setTimeParts(long[] startMillis, long[] endMillis, int count) {
+        final int[] startTimes = new int[count];
+        final int[] endTimes = new int[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final long start = (startMillis[i] - mRangeStartMillis) / 1000;
+            final long end = (endMillis[i] - mRangeStartMillis) / 1000;
+            if (end < 0 || start > mMaxTime) {
+                continue;
+            }
+            startTimes[size] = (int) Math.max(0, start);
+            endTimes[size] = (int) Math.min(mMaxTime, end);
+            size++;
+        }
+        setTimeParts(startTimes, endTimes, size);
+    }
     
 }
@@ -0,0 +1,252 @@
+package com.zjun.widget;
+
+import java.util.Arrays;
+
+/**
+ * TimeZoomLevels
+ *
+ * {@link TimeRuleView}的缩放等级：每级的最小刻度单位、数值显示间隔，以及缩放值到等级的查找
+ *
+ * 思路：
+ *  - 原来是按一种屏幕密度估算出来的14级固定表，字体变大或密度不同时，数值可能重叠、刻度可能过密
+ *  - 改为初始化时根据实际尺寸计算：以每秒的像素数（pps）表示缩放，给定候选的刻度单位与数值间隔
+ *    - 数值间隔：取 间隔 * pps >= 数值最小间距（文字宽度 + 留白）的最小候选值，数值不会重叠
+ *    - 刻度单位：取 单位 * pps >= 刻度最小间距，且能整除数值间隔的最小候选值，刻度密度有上限
+ *  - 等级只在 数值最小间距 / 间隔、刻度最小间距 / 单位 这些分界点上变化，计算出所有分界点，合并相同的相邻等级
+ *  - 查找：按 ln(pps) 等分为若干桶，预先记录每个桶起点所在的等级，查找时最多再比较几次（通常一次），每次缩放回调都是O(1)
+ *  - 不依赖 android.*，可在JVM中测试与基准测试
+ */
+final class TimeZoomLevels {
+
+    /**
+     * 默认的候选刻度单位，单位：s
+     */
+    static final int[] DEFAULT_UNIT_SECONDS = {
+            10, 30, 60, 2 * 60, 5 * 60, 10 * 60, 15 * 60, 30 * 60, 3600
+    };
+
+    /**
+     * 默认的候选数值间隔，单位：s。数值只显示到分钟，所以必须是60的倍数
+     */
+    static final int[] DEFAULT_LABEL_SECONDS = {
+            60, 2 * 60, 5 * 60, 10 * 60, 15 * 60, 20 * 60, 30 * 60,
+            3600, 2 * 3600, 3 * 3600, 4 * 3600, 6 * 3600, 12 * 3600
+    };
+
+    /**
+     * 查找表的最大桶数
+     */
+    private static final int MAX_BUCKETS = 1024;
+
+    private final int[] mUnitSeconds;
+    private final int[] mLabelSeconds;
+    /**
+     * 各等级的最小pps（含），降序。等级0为放大最多的等级
+     */
+    private final float[] mMinPixelsPerSecond;
+    private final float mMaxPixelsPerSecond;
+
+    private final double mLogMin;
+    private final double mBucketsPerLog;
+    private final int[] mBucketLevels;
+
+    /**
+     * 计算缩放等级
+     *
+     * @param unitSeconds       候选刻度单位，单位：s
+     * @param labelSeconds      候选数值间隔，单位：s，必须是60的倍数
+     * @param minTickGap        相邻刻度的最小间距，单位：px
+     * @param minLabelGap       相邻数值的最小间距（文字宽度 + 留白），单位：px
+     * @param minPixelsPerSecond 最小的pps（缩小的极限）。最大的数值间隔放不下数值时，会调大
+     * @param maxPixelsPerSecond 最大的pps（放大的极限）
+     */
+    TimeZoomLevels(int[] unitSeconds, int[] labelSeconds, float minTickGap, float minLabelGap,
+                   float minPixelsPerSecond, float maxPixelsPerSecond) {
+        final int[] units = sortedPositive(unitSeconds, "unitSeconds");
+        final int[] labels = sortedPositive(labelSeconds, "labelSeconds");
+        for (int label : labels) {
+            if (label % 60 != 0) {
+                throw new IllegalArgumentException(String.format("The label interval(%d) must be a multiple of 60", label));
+            }
+        }
+        if (!(minTickGap > 0) || !(minLabelGap > 0) || !(minPixelsPerSecond > 0)) {
+            throw new IllegalArgumentException(String.format("Invalid gaps: minTickGap=%f, minLabelGap=%f, " +
+                    "minPixelsPerSecond=%f", minTickGap, minLabelGap, minPixelsPerSecond));
+        }
+        // 最大的数值间隔也要放得下数值
+        final float minPps = Math.max(minPixelsPerSecond, minLabelGap / labels[labels.length - 1]);
+        final float maxPps = Math.max(minPps, maxPixelsPerSecond);
+
+        // 分界点：降序，第一个是最大值，最后一个是最小值
+        final float[] bounds = new float[units.length + labels.length + 2];
+        int count = 0;
+        bounds[count++] = maxPps;
+        bounds[count++] = minPps;
+        for (int unit : units) {
+            count = addBound(bounds, count, minTickGap / unit, minPps, maxPps);
+        }
+        for (int label : labels) {
+            count = addBound(bounds, count, minLabelGap / label, minPps, maxPps);
+        }
+        Arrays.sort(bounds, 0, count);
+
+        final int[] levelUnits = new int[count];
+        final int[] levelLabels = new int[count];
+        final float[] levelMins = new float[count];
+        int size = 0;
+        // 从大到小遍历各区间 [bounds[i - 1], bounds[i])，取区间中点（对数）计算，避免分界点上的浮点误差
+        for (int i = count - 1; i > 0; i--) {
+            final float low = bounds[i - 1];
+            final float high = bounds[i];
+            if (!(high > low)) {
+                continue;
+            }
+            final float pps = (float) Math.sqrt((double) low * high);
+            final int label = chooseLabel(labels, minLabelGap, pps);
+            final int unit = chooseUnit(units, minTickGap, label, pps);
+            if (size > 0 && levelUnits[size - 1] == unit && levelLabels[size - 1] == label) {
+                // 与上一级相同，合并
+                levelMins[size - 1] = low;
+            } else {
+                levelUnits[size] = unit;
+                levelLabels[size] = label;
+                levelMins[size] = low;
+                size++;
+            }
+        }
+        if (size == 0) {
+            // 最大值等于最小值：只有一级
+            final int label = chooseLabel(labels, minLabelGap, minPps);
+            levelUnits[0] = chooseUnit(units, minTickGap, label, minPps);
+            levelLabels[0] = label;
+            levelMins[0] = minPps;
+            size = 1;
+        }
+        mUnitSeconds = Arrays.copyOf(levelUnits, size);
+        mLabelSeconds = Arrays.copyOf(levelLabels, size);
+        mMinPixelsPerSecond = Arrays.copyOf(levelMins, size);
+        mMaxPixelsPerSecond = maxPps;
+
+        // 查找表：桶宽小于相邻分界点的最小距离时，每个桶内最多一个分界点
+        mLogMin = Math.log(minPps);
+        final double logRange = Math.log(maxPps) - mLogMin;
+        double minLogGap = logRange;
+        for (int i = 1; i < size; i++) {
+            minLogGap = Math.min(minLogGap, Math.log(mMinPixelsPerSecond[i - 1]) - Math.log(mMinPixelsPerSecond[i]));
+        }
+        final int buckets = logRange > 0 && minLogGap > 0
+                ? (int) Math.min(MAX_BUCKETS, Math.ceil(logRange / minLogGap) + 1) : 1;
+        mBucketsPerLog = logRange > 0 ? buckets / logRange : 0;
+        mBucketLevels = new int[buckets];
+        for (int b = 0; b < buckets; b++) {
+            final double start = mBucketsPerLog > 0 ? Math.exp(mLogMin + b / mBucketsPerLog) : minPps;
+            mBucketLevels[b] = scanIndexOf((float) start);
+        }
+    }
+
+    private static int[] sortedPositive(int[] values, String name) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException(String.format("The %s must not be empty", name));
+        }
+        final int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] <= 0) {
+            throw new IllegalArgumentException(String.format("The %s must be positive: %s", name, Arrays.toString(values)));
+        }
+        return sorted;
+    }
+
+    private static int addBound(float[] bounds, int count, float bound, float min, float max) {
+        if (bound > min && bound < max) {
+            bounds[count++] = bound;
+        }
+        return count;
+    }
+
+    /**
+     * 数值不重叠的最小间隔
+     */
+    private static int chooseLabel(int[] labels, float minLabelGap, float pps) {
+        for (int label : labels) {
+            if (label * pps >= minLabelGap) {
+                return label;
+            }
+        }
+        return labels[labels.length - 1];
+    }
+
+    /**
+     * 刻度不过密、且能整除数值间隔的最小单位。没有时只在数值处画刻度
+     */
+    private static int chooseUnit(int[] units, float minTickGap, int label, float pps) {
+        for (int unit : units) {
+            if (unit * pps >= minTickGap && label % unit == 0) {
+                return unit;
+            }
+        }
+        return label;
+    }
+
+    /**
+     * 等级数
+     */
+    int size() {
+        return mUnitSeconds.length;
+    }
+
+    int unitSecondsAt(int index) {
+        return mUnitSeconds[index];
+    }
+
+    int labelSecondsAt(int index) {
+        return mLabelSeconds[index];
+    }
+
+    /**
+     * 等级的最小pps（含）
+     */
+    float minPixelsPerSecondAt(int index) {
+        return mMinPixelsPerSecond[index];
+    }
+
+    float getMinPixelsPerSecond() {
+        return mMinPixelsPerSecond[mMinPixelsPerSecond.length - 1];
+    }
+
+    float getMaxPixelsPerSecond() {
+        return mMaxPixelsPerSecond;
+    }
+
+    /**
+     * pps所在的等级，超出范围时取两端的等级
+     */
+    int indexOf(float pixelsPerSecond) {
+        final int last = mMinPixelsPerSecond.length - 1;
+        if (!(pixelsPerSecond > mMinPixelsPerSecond[last])) {
+            return last;
+        }
+        int bucket = (int) ((Math.log(pixelsPerSecond) - mLogMin) * mBucketsPerLog);
+        bucket = Math.max(0, Math.min(mBucketLevels.length - 1, bucket));
+        int index = mBucketLevels[bucket];
+        while (index > 0 && pixelsPerSecond >= mMinPixelsPerSecond[index - 1]) {
+            index--;
+        }
+        // 桶边界的浮点误差
+        while (index < last && pixelsPerSecond < mMinPixelsPerSecond[index]) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 逐级查找，只在初始化时使用
+     */
+    private int scanIndexOf(float pixelsPerSecond) {
+        for (int i = 0; i < mMinPixelsPerSecond.length; i++) {
+            if (pixelsPerSecond >= mMinPixelsPerSecond[i]) {
+                return i;
+            }
+        }
+        return mMinPixelsPerSecond.length - 1;
+    }
+}
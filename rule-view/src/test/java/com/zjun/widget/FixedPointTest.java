@@ -0,0 +1,49 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * FixedPoint 的单元测试，在JVM中运行
+ */
+public class FixedPointTest {
+
+    @Test
+    public void toFixed_roundsInsteadOfTruncating() {
+        // 0.29f * 100 = 28.999...，截断会得到28
+        assertEquals(29, FixedPoint.toFixed(0.29f, 2));
+        assertEquals(5, FixedPoint.toFixed(0.05f, 2));
+        assertEquals(1, FixedPoint.toFixed(0.01f, 2));
+        assertEquals(-15, FixedPoint.toFixed(-1.5f, 1));
+    }
+
+    @Test
+    public void toFixed_largeValuesDoNotOverflowInt() {
+        assertEquals(5000000000L, FixedPoint.toFixed(5e8f, 1));
+    }
+
+    @Test
+    public void toFloat() {
+        assertEquals(0.05f, FixedPoint.toFloat(5, 2), 0f);
+        assertEquals(12.5f, FixedPoint.toFloat(125, 1), 0f);
+    }
+
+    @Test
+    public void format_trimsTrailingZeros() {
+        assertEquals("12.5", FixedPoint.format(1250, 2));
+        assertEquals("12", FixedPoint.format(1200, 2));
+        assertEquals("0.05", FixedPoint.format(5, 2));
+        assertEquals("0.001", FixedPoint.format(1, 3));
+        assertEquals("1.025", FixedPoint.format(1025, 3));
+        assertEquals("-0.5", FixedPoint.format(-5, 1));
+        assertEquals("-12", FixedPoint.format(-120, 1));
+        assertEquals("0", FixedPoint.format(0, 2));
+        assertEquals("42", FixedPoint.format(42, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void factorOf_rejectsOutOfRangeScale() {
+        FixedPoint.factorOf(FixedPoint.MAX_SCALE + 1);
+    }
+}
@@ -0,0 +1,105 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * LatestValueDispatcher 的单元测试，使用手动执行的Executor
+ */
+public class LatestValueDispatcherTest {
+
+    private final List<Runnable> mTasks = new ArrayList<>();
+    private final List<Integer> mValues = new ArrayList<>();
+    private LatestValueDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new LatestValueDispatcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mTasks.add(command);
+            }
+        }, new LatestValueDispatcher.Consumer() {
+            @Override
+            public void accept(int value) {
+                mValues.add(value);
+            }
+        });
+    }
+
+    private void runTasks() {
+        while (!mTasks.isEmpty()) {
+            mTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void post_dropsStaleValues() {
+        for (int i = 1; i <= 100; i++) {
+            mDispatcher.post(i);
+        }
+        // 只提交了一个任务，只回调最新值
+        assertEquals(1, mTasks.size());
+        runTasks();
+        assertEquals(1, mValues.size());
+        assertEquals(100, (int) mValues.get(0));
+    }
+
+    @Test
+    public void post_duringDelivery_deliversLatestOnce() {
+        mDispatcher = new LatestValueDispatcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mTasks.add(command);
+            }
+        }, new LatestValueDispatcher.Consumer() {
+            @Override
+            public void accept(int value) {
+                mValues.add(value);
+                if (value == 1) {
+                    // 回调期间又有新值
+                    mDispatcher.post(2);
+                    mDispatcher.post(3);
+                }
+            }
+        });
+        mDispatcher.post(1);
+        runTasks();
+        assertEquals(2, mValues.size());
+        assertEquals(1, (int) mValues.get(0));
+        assertEquals(3, (int) mValues.get(1));
+    }
+
+    @Test
+    public void post_negativeAndZeroValues() {
+        mDispatcher.post(0);
+        runTasks();
+        mDispatcher.post(-1);
+        runTasks();
+        mDispatcher.post(Integer.MIN_VALUE);
+        runTasks();
+        assertEquals(3, mValues.size());
+        assertEquals(0, (int) mValues.get(0));
+        assertEquals(-1, (int) mValues.get(1));
+        assertEquals(Integer.MIN_VALUE, (int) mValues.get(2));
+    }
+
+    @Test
+    public void cancel_dropsPendingValue() {
+        mDispatcher.post(5);
+        mDispatcher.cancel();
+        runTasks();
+        assertTrue(mValues.isEmpty());
+        // 取消后仍可继续使用
+        mDispatcher.post(6);
+        runTasks();
+        assertEquals(1, mValues.size());
+        assertEquals(6, (int) mValues.get(0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * LocalTimeAlignment 的单元测试：纽约时间 2018/3/11 02:00 开始夏令时，时钟拨快1小时
+ */
+public class LocalTimeAlignmentTest {
+
+    private static final int HOUR = 3600;
+    /**
+     * 2018/3/10 00:00 EST
+     */
+    private static final long START_MILLIS = 1520658000000L;
+    /**
+     * 2018/3/11 02:00 EST，即 03:00 EDT
+     */
+    private static final int DST_START = 26 * HOUR;
+
+    private LocalTimeAlignment mAlignment;
+
+    @Before
+    public void setUp() {
+        mAlignment = new LocalTimeAlignment(START_MILLIS, TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @Test
+    public void localDayTime_jumpsAtDstStart() {
+        assertEquals(0, mAlignment.localDayTime(0));
+        assertEquals(2 * HOUR - 1, mAlignment.localDayTime(DST_START - 1));
+        assertEquals(3 * HOUR, mAlignment.localDayTime(DST_START));
+        // 3/12 00:00 EDT
+        assertEquals(0, mAlignment.localDayTime(47 * HOUR));
+    }
+
+    @Test
+    public void alignment_changesOnceAtDstStart() {
+        assertEquals(0, mAlignment.alignmentAt(0));
+        assertEquals(0, mAlignment.alignmentAt(DST_START - 1));
+        assertEquals(HOUR, mAlignment.alignmentAt(DST_START));
+        assertEquals(DST_START, mAlignment.nextChange(0, 3 * 24 * HOUR));
+        assertEquals(DST_START, mAlignment.nextChange(DST_START - 1, DST_START));
+        assertEquals(-1, mAlignment.nextChange(0, DST_START - 1));
+        assertEquals(-1, mAlignment.nextChange(DST_START, 3 * 24 * HOUR));
+        assertEquals(-1, mAlignment.nextChange(10, 10));
+    }
+
+    @Test
+    public void labelsStayOnLocalHoursAfterDst() {
+        // 每6小时一个数值：按所在段的偏移分类，与本地时间的 00:00、06:00、12:00、18:00 一致
+        final int labelEvery = 6 * HOUR;
+        for (int value = 0; value <= 3 * 24 * HOUR; value += HOUR) {
+            final int alignment = mAlignment.alignmentAt(value);
+            final boolean labeled = (value + alignment) % labelEvery == 0;
+            assertEquals(mAlignment.localDayTime(value) % labelEvery == 0, labeled);
+            if (labeled) {
+                assertEquals(mAlignment.localDayTime(value), (value + alignment) % TimeRuleView.MAX_TIME_VALUE);
+            }
+        }
+    }
+}
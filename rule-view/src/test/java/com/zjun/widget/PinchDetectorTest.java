@@ -0,0 +1,156 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * PinchDetector 的单元测试，使用合成的手指序列
+ */
+public class PinchDetectorTest {
+
+    private static final float MIN_SPAN = 20f;
+
+    private final List<String> mEvents = new ArrayList<>();
+    private float mTotalScale;
+    private PinchDetector mDetector;
+
+    @Before
+    public void setUp() {
+        mTotalScale = 1;
+        mDetector = new PinchDetector(MIN_SPAN, new PinchDetector.OnPinchListener() {
+            @Override
+            public void onPinchBegin(float focusX, float focusY) {
+                mEvents.add("begin:" + focusX + "," + focusY);
+            }
+
+            @Override
+            public void onPinch(float scaleFactor, float focusX, float focusY) {
+                mTotalScale *= scaleFactor;
+                mEvents.add("pinch");
+            }
+
+            @Override
+            public void onPinchEnd() {
+                mEvents.add("end");
+            }
+        });
+    }
+
+    /**
+     * 两指在水平方向上以 center 为中点，跨度为 span 的一个采样点
+     */
+    private void sampleSpan(float center, float span) {
+        mDetector.move(0, center - span / 2, 100);
+        mDetector.move(1, center + span / 2, 100);
+        mDetector.sample();
+    }
+
+    @Test
+    public void pinch_scaleFactorsMultiplyToSpanRatio() {
+        mDetector.pointerDown(0, 100, 100);
+        mDetector.sample();
+        mDetector.pointerDown(1, 200, 100);
+        mDetector.sample();
+        assertTrue(mDetector.isInProgress());
+        assertEquals("begin:150.0,100.0", mEvents.get(0));
+        // 历史采样逐个处理：100 -> 400
+        for (int span = 110; span <= 400; span += 10) {
+            sampleSpan(150, span);
+        }
+        assertEquals(4f, mTotalScale, 1e-4f);
+        assertEquals(1 + 30, mEvents.size());
+    }
+
+    @Test
+    public void pinch_notStartedBelowMinSpan() {
+        mDetector.pointerDown(0, 100, 100);
+        mDetector.pointerDown(1, 110, 100);
+        mDetector.sample();
+        assertFalse(mDetector.isInProgress());
+        sampleSpan(105, 15);
+        assertTrue(mEvents.isEmpty());
+        // 张开到最小跨度后开始
+        sampleSpan(105, MIN_SPAN);
+        assertTrue(mDetector.isInProgress());
+        sampleSpan(105, MIN_SPAN * 2);
+        assertEquals(2f, mTotalScale, 1e-4f);
+    }
+
+    @Test
+    public void pinch_clampedBelowMinSpanUntilPointerUp() {
+        mDetector.pointerDown(0, 0, 100);
+        mDetector.pointerDown(1, 100, 100);
+        mDetector.sample();
+        // 两指靠近到最小跨度以下：不结束，按最小跨度计算
+        sampleSpan(50, 10);
+        assertTrue(mDetector.isInProgress());
+        assertEquals(MIN_SPAN / 100, mTotalScale, 1e-4f);
+        sampleSpan(50, 0);
+        assertEquals(MIN_SPAN / 100, mTotalScale, 1e-4f);
+        // 再张开时从最小跨度继续
+        sampleSpan(50, 100);
+        assertEquals(1f, mTotalScale, 1e-4f);
+        assertFalse(mEvents.contains("end"));
+
+        mDetector.pointerUp(0);
+        assertEquals("end", mEvents.get(mEvents.size() - 1));
+    }
+
+    @Test
+    public void pointerUp_endsAndThirdPointerCanContinue() {
+        mDetector.pointerDown(0, 0, 100);
+        mDetector.pointerDown(1, 100, 100);
+        // 第三个手指不跟踪
+        mDetector.pointerDown(2, 300, 100);
+        mDetector.sample();
+        mDetector.move(2, 1000, 100);
+        mDetector.sample();
+        assertEquals("[begin:50.0,100.0]", mEvents.toString());
+
+        mDetector.pointerUp(1);
+        assertFalse(mDetector.isInProgress());
+        // 补充剩下的手指后继续
+        mDetector.pointerDown(2, 300, 100);
+        mDetector.sample();
+        assertTrue(mDetector.isInProgress());
+        mDetector.move(2, 600, 100);
+        mDetector.sample();
+        assertEquals(2f, mTotalScale, 1e-4f);
+    }
+
+    @Test
+    public void unchangedSpan_notDispatched() {
+        mDetector.pointerDown(0, 0, 100);
+        mDetector.pointerDown(1, 100, 100);
+        mDetector.sample();
+        // 平移：跨度不变
+        mDetector.move(0, 50, 100);
+        mDetector.move(1, 150, 100);
+        mDetector.sample();
+        assertEquals(1, mEvents.size());
+    }
+
+    @Test
+    public void cancel_endsOnce() {
+        mDetector.pointerDown(0, 0, 100);
+        mDetector.pointerDown(1, 100, 100);
+        mDetector.sample();
+        mDetector.cancel();
+        mDetector.cancel();
+        mDetector.pointerUp(0);
+        assertEquals("[begin:50.0,100.0, end]", mEvents.toString());
+        // 没有手指时不计算
+        mDetector.sample();
+        assertFalse(mDetector.isInProgress());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setMinSpan_rejectsNegative() {
+        mDetector.setMinSpan(-1);
+    }
+}
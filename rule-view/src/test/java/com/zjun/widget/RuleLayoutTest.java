@@ -0,0 +1,165 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * RuleLayout 的单元测试，在JVM中运行
+ */
+public class RuleLayoutTest {
+
+    private RuleLayout mLayout;
+
+    @Before
+    public void setUp() {
+        // 与RuleView的默认值一致：[0, 100]，单位0.1（放大10倍后为1），每10个刻度一个长刻度，间距10px
+        mLayout = new RuleLayout();
+        mLayout.setRange(0, 1000);
+        mLayout.setGrid(0, 0, 1, 10f);
+        mLayout.setClassification(0, 0, 10, 10);
+        mLayout.setExpendUnits(2);
+    }
+
+    @Test
+    public void layout_visibleRangeWithExpend() {
+        final int count = mLayout.layout(100, 100);
+        // 10 ~ 20 可见，两侧各扩展2个刻度
+        assertEquals(15, count);
+        assertEquals(8, mLayout.valueAt(0));
+        assertEquals(22, mLayout.valueAt(count - 1));
+        assertEquals(-20f, mLayout.positionAt(0), 1e-4f);
+        assertEquals(120f, mLayout.positionAt(count - 1), 1e-4f);
+    }
+
+    @Test
+    public void layout_clampedToRange() {
+        int count = mLayout.layout(-50, 100);
+        assertEquals(0, mLayout.valueAt(0));
+        assertEquals(50f, mLayout.positionAt(0), 1e-4f);
+        // 0 ~ 5 可见，右侧扩展2个刻度
+        assertEquals(8, count);
+
+        count = mLayout.layout(9950, 100);
+        assertEquals(1000, mLayout.valueAt(count - 1));
+
+        assertEquals(0, mLayout.layout(20000, 100));
+    }
+
+    @Test
+    public void layout_classifiesTicks() {
+        final int count = mLayout.layout(0, 200);
+        for (int i = 0; i < count; i++) {
+            final boolean isLong = mLayout.valueAt(i) % 10 == 0;
+            assertEquals(isLong ? RuleLayout.TICK_LONG : RuleLayout.TICK_SHORT, mLayout.typeAt(i));
+            assertEquals(isLong, mLayout.hasLabelAt(i));
+        }
+    }
+
+    @Test
+    public void layout_gridAnchoredAtMinValue() {
+        // 最小值不在长刻度上：[0.5, 10]，单位1
+        mLayout.setRange(5, 100);
+        mLayout.setGrid(5, 5, 10, 12f);
+        mLayout.setClassification(0, 0, 100, 100);
+        final int count = mLayout.layout(0, 100);
+        for (int i = 0; i < count; i++) {
+            assertEquals(5, mLayout.valueAt(i) % 10);
+            assertEquals(RuleLayout.TICK_SHORT, mLayout.typeAt(i));
+        }
+    }
+
+    @Test
+    public void layout_timeAlignment() {
+        // 时间：每个刻度1分钟，时区偏移 +8h 后对齐到整点
+        final int alignment = 8 * 3600 + 30;
+        mLayout.setRange(0, 3 * 86400);
+        mLayout.setGrid(0, -alignment, 60, 5f);
+        mLayout.setClassification(alignment, 60, 3600, 600);
+        final int count = mLayout.layout(1000, 600);
+        int hours = 0;
+        for (int i = 0; i < count; i++) {
+            final long dayTime = mLayout.valueAt(i) + alignment;
+            assertEquals(0, dayTime % 60);
+            assertEquals(dayTime % 3600 == 0 ? RuleLayout.TICK_LONG : RuleLayout.TICK_MIDDLE, mLayout.typeAt(i));
+            assertEquals(dayTime % 600 == 0, mLayout.hasLabelAt(i));
+            if (dayTime % 3600 == 0) {
+                hours++;
+            }
+        }
+        assertTrue(hours > 0);
+    }
+
+    @Test
+    public void layout_middleTicks() {
+        mLayout.setClassification(0, 5, 10, 10);
+        mLayout.layout(0, 100);
+        assertEquals(RuleLayout.TICK_LONG, mLayout.typeAt(0));
+        assertEquals(RuleLayout.TICK_MIDDLE, mLayout.typeAt(5));
+        assertEquals(RuleLayout.TICK_SHORT, mLayout.typeAt(3));
+    }
+
+    @Test
+    public void valueAt_floorAndRound() {
+        assertEquals(12, mLayout.floorValueAt(129.9));
+        assertEquals(13, mLayout.roundValueAt(129.9));
+        assertEquals(0, mLayout.floorValueAt(-30));
+        assertEquals(1000, mLayout.roundValueAt(20000));
+    }
+
+    @Test
+    public void valueAt_toleratesFloatError() {
+        // k * gap 使用float计算，可能略小于真实值，不能向下取整到 k - 1
+        final float gap = 12.7f;
+        mLayout.setGrid(0, 0, 1, gap);
+        for (int k = 0; k <= 1000; k++) {
+            final float distance = k * gap;
+            assertEquals(k, mLayout.floorValueAt(distance));
+        }
+    }
+
+    @Test
+    public void valueAt_offGridMaxValue() {
+        // 最大值不在网格上时，限定到网格上最后一个刻度
+        mLayout.setRange(0, 995);
+        mLayout.setGrid(0, 0, 10, 10f);
+        assertEquals(990, mLayout.roundValueAt(100000));
+        assertEquals(990, mLayout.floorValueAt(100000));
+    }
+
+    @Test
+    public void distanceOf_isInverseOfValueAt() {
+        mLayout.setGrid(-500, -500, 5, 7.5f);
+        mLayout.setRange(-500, 500);
+        for (long value = -500; value <= 500; value += 5) {
+            assertEquals(value, mLayout.roundValueAt(mLayout.distanceOf(value)));
+            assertEquals(value, mLayout.floorValueAt(mLayout.distanceOf(value)));
+        }
+    }
+
+    @Test
+    public void layout_largeRange() {
+        // 10^9 个刻度，总距离约 1.2e10 px，超出int与float的精度
+        final long max = 1000000000L;
+        mLayout.setRange(0, max);
+        mLayout.setGrid(0, 0, 1, 12f);
+        mLayout.setClassification(0, 0, 10, 10);
+        final long value = max - 12345;
+        final double distance = mLayout.distanceOf(value);
+        assertEquals(value, mLayout.roundValueAt(distance));
+        assertEquals(value, mLayout.floorValueAt(distance));
+        assertEquals(value + 1, mLayout.roundValueAt(distance + 7));
+        // 每帧的刻度数只与宽度有关
+        final int count = mLayout.layout(distance - 540, 1080);
+        assertEquals(1080 / 12 + 1 + 2 * 2, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals((mLayout.valueAt(i) - value) * 12f + 540, mLayout.positionAt(i), 1e-2f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setGrid_rejectsZeroUnit() {
+        mLayout.setGrid(0, 0, 0, 10f);
+    }
+}
@@ -0,0 +1,176 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ScaleMapping 与 SegmentedLayout 的单元测试，在JVM中运行
+ */
+public class ScaleMappingTest {
+
+    private static final float GAP = 10f;
+
+    private SegmentedLayout mLayout;
+
+    @Before
+    public void setUp() {
+        mLayout = new SegmentedLayout();
+        mLayout.setExpendUnits(2);
+    }
+
+    @Test
+    public void linear_sameAsRuleLayout() {
+        // 与RuleView的默认值一致：[0, 100]，单位0.1，放大10倍
+        ScaleMapping.linear().build(mLayout, 0, 1000, 1, 1, GAP, 10);
+        final RuleLayout expected = new RuleLayout();
+        expected.setRange(0, 1000);
+        expected.setGrid(0, 0, 1, GAP);
+        expected.setClassification(0, 0, 10, 10);
+        expected.setExpendUnits(2);
+
+        assertEquals(1, mLayout.getSegmentCount());
+        for (double left = -200; left < 10200; left += 333.3) {
+            final int count = expected.layout(left, 500);
+            assertEquals(count, mLayout.layout(left, 500));
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected.valueAt(i), mLayout.valueAt(i));
+                assertEquals(expected.positionAt(i), mLayout.positionAt(i), 1e-3f);
+                assertEquals(expected.typeAt(i), mLayout.typeAt(i));
+                assertEquals(expected.hasLabelAt(i), mLayout.hasLabelAt(i));
+            }
+            assertEquals(expected.roundValueAt(left), mLayout.roundValueAt(left));
+            assertEquals(expected.floorValueAt(left), mLayout.floorValueAt(left));
+        }
+    }
+
+    @Test
+    public void log10_decadesHaveSameWidth() {
+        // [0.1, 100000]，放大10倍：[1, 10^6]
+        final float decade = 300f;
+        ScaleMapping.log10(decade).build(mLayout, 1, 1000000, 1, 1, GAP, 10);
+        assertEquals(6 * 9, mLayout.getSegmentCount());
+        long power = 1;
+        for (int k = 0; k <= 6; k++) {
+            assertEquals(k * decade, mLayout.distanceOf(power), 1e-3);
+            assertEquals(power, mLayout.roundValueAt(k * decade));
+            power *= 10;
+        }
+        // 尾数为整数处严格位于对数位置
+        assertEquals(decade * (3 + Math.log10(4)), mLayout.distanceOf(4000), 1e-3);
+    }
+
+    @Test
+    public void log10_ticksNotTooDenseAndLabeled() {
+        ScaleMapping.log10(300f).build(mLayout, 1, 1000000, 1, 1, GAP, 10);
+        final double total = mLayout.distanceOf(1000000);
+        for (double left = 0; left < total; left += 97) {
+            final int count = mLayout.layout(left, 1080);
+            assertTrue(count > 0);
+            for (int i = 1; i < count; i++) {
+                assertTrue(mLayout.valueAt(i) > mLayout.valueAt(i - 1));
+                assertTrue(mLayout.positionAt(i) - mLayout.positionAt(i - 1) >= GAP * 0.999f
+                        || mLayout.valueAt(i) < 10);
+            }
+            for (int i = 0; i < count; i++) {
+                final long value = mLayout.valueAt(i);
+                long power = 1;
+                while (power <= value / 10) {
+                    power *= 10;
+                }
+                final boolean integerMantissa = value % power == 0;
+                final long mantissa = value / power;
+                assertEquals(integerMantissa, mLayout.typeAt(i) == RuleLayout.TICK_LONG);
+                assertEquals(integerMantissa && (mantissa == 1 || mantissa == 2 || mantissa == 5),
+                        mLayout.hasLabelAt(i));
+            }
+        }
+    }
+
+    @Test
+    public void log10_roundTripAndMonotonic() {
+        ScaleMapping.log10(240f).build(mLayout, 5, 123456, 1, 2, GAP, 10);
+        double previous = -1;
+        for (long value = 5; value <= 123456; value += 37) {
+            final double distance = mLayout.distanceOf(value);
+            assertTrue(distance > previous);
+            previous = distance;
+            // 吸附后的数值在刻度上，再次吸附不变
+            final long snapped = mLayout.roundValueAt(distance);
+            assertEquals(snapped, mLayout.roundValueAt(mLayout.distanceOf(snapped)));
+            assertEquals(snapped, mLayout.floorValueAt(mLayout.distanceOf(snapped)));
+        }
+        assertEquals(5, mLayout.floorValueAt(-100));
+    }
+
+    @Test
+    public void log10_unitNotSmallerThanNumberUnit() {
+        // 最小单位50大于前两个数量级：[1, 100) 内只有各段起点的刻度，之后的刻度都是50的倍数
+        ScaleMapping.log10(300f).build(mLayout, 1, 100000, 50, 1, GAP, 10);
+        final double total = mLayout.distanceOf(100000);
+        for (double left = 0; left < total; left += 97) {
+            final int count = mLayout.layout(left, 1080);
+            for (int i = 0; i < count; i++) {
+                final long value = mLayout.valueAt(i);
+                if (value < 100) {
+                    assertEquals(0, value % (value < 10 ? 1 : 10));
+                } else {
+                    assertEquals(0, value % 50);
+                }
+                if (i > 0) {
+                    assertTrue(mLayout.positionAt(i) - mLayout.positionAt(i - 1) >= GAP * 0.999f);
+                }
+            }
+            final long snapped = mLayout.roundValueAt(left);
+            if (snapped >= 100) {
+                assertEquals(0, snapped % 50);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void log10_rejectsNonPositiveMin() {
+        ScaleMapping.log10(300f).build(mLayout, 0, 1000, 1, 1, GAP, 10);
+    }
+
+    @Test
+    public void piecewise_continuousWithSegmentUnits() {
+        // [0, 10] 单位0.1；[10, 1000] 单位10；[1000, ...] 单位100。放大10倍
+        ScaleMapping.piecewise(new float[]{0, 10, 1000, 100000}, new float[]{0.1f, 10, 100})
+                .build(mLayout, 0, 50000, 1, 1, GAP, 10);
+        assertEquals(3, mLayout.getSegmentCount());
+        assertEquals(100 * GAP, mLayout.distanceOf(100), 1e-3);
+        assertEquals((100 + 99) * GAP, mLayout.distanceOf(10000), 1e-3);
+        assertEquals((100 + 99 + 40) * GAP, mLayout.distanceOf(50000), 1e-3);
+        assertEquals(200, mLayout.roundValueAt(101 * GAP + 1));
+        assertEquals(10000, mLayout.roundValueAt(199 * GAP - 1));
+        assertEquals(11000, mLayout.roundValueAt(200 * GAP - 1));
+
+        // 分界处的刻度只出现一次，起点是长刻度
+        final int count = mLayout.layout(95 * GAP, 20 * (int) GAP);
+        int boundaries = 0;
+        for (int i = 0; i < count; i++) {
+            if (mLayout.valueAt(i) == 100) {
+                boundaries++;
+                assertEquals(RuleLayout.TICK_LONG, mLayout.typeAt(i));
+                assertEquals(100 * GAP - 95 * GAP, mLayout.positionAt(i), 1e-3f);
+            }
+            if (i > 0) {
+                assertEquals(GAP, mLayout.positionAt(i) - mLayout.positionAt(i - 1), 1e-3f);
+            }
+        }
+        assertEquals(1, boundaries);
+    }
+
+    @Test
+    public void layout_onlyVisibleTicks() {
+        ScaleMapping.log10(300f).build(mLayout, 1, 1000000000L, 1, 1, GAP, 10);
+        final double total = mLayout.distanceOf(1000000000L);
+        final int count = mLayout.layout(total / 2, 1080);
+        assertTrue(count <= 1080 / GAP + 1 + 4 * 2);
+        for (int i = 0; i < count; i++) {
+            assertTrue(mLayout.positionAt(i) > -3 * 300f && mLayout.positionAt(i) < 1080 + 3 * 300f);
+        }
+    }
+}
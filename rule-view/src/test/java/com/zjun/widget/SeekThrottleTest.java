@@ -0,0 +1,147 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SeekThrottle 的单元测试，使用假时钟与手动执行的延时任务
+ */
+public class SeekThrottleTest {
+
+    private static final long INTERVAL = 100;
+
+    private long mNow;
+    private Runnable mTask;
+    private long mTaskTime;
+    private final List<String> mSeeks = new ArrayList<>();
+    private SeekThrottle mThrottle;
+
+    @Before
+    public void setUp() {
+        mNow = 1000;
+        mThrottle = new SeekThrottle(INTERVAL, new SeekThrottle.Clock() {
+            @Override
+            public long uptimeMillis() {
+                return mNow;
+            }
+        }, new SeekThrottle.Scheduler() {
+            @Override
+            public boolean postDelayed(Runnable action, long delayMillis) {
+                assertNull("Only one task may be scheduled", mTask);
+                mTask = action;
+                mTaskTime = mNow + delayMillis;
+                return true;
+            }
+
+            @Override
+            public boolean removeCallbacks(Runnable action) {
+                mTask = null;
+                return true;
+            }
+        }, new SeekThrottle.Target() {
+            @Override
+            public void onSeek(int value, boolean precise) {
+                mSeeks.add((precise ? "settle:" : "seek:") + value);
+            }
+        });
+    }
+
+    /**
+     * 时钟前进，执行到期的任务
+     */
+    private void advance(long millis) {
+        mNow += millis;
+        if (mTask != null && mTaskTime <= mNow) {
+            final Runnable task = mTask;
+            mTask = null;
+            task.run();
+        }
+    }
+
+    @Test
+    public void request_firstSeekIsImmediate() {
+        mThrottle.request(10);
+        assertEquals("[seek:10]", mSeeks.toString());
+        assertNull(mTask);
+    }
+
+    @Test
+    public void request_throttledToLatestValue() {
+        mThrottle.request(1);
+        for (int i = 2; i <= 6; i++) {
+            advance(16);
+            mThrottle.request(i);
+        }
+        // 80ms 内只seek了第一个值
+        assertEquals("[seek:1]", mSeeks.toString());
+        assertEquals(1000 + INTERVAL, mTaskTime);
+        advance(20);
+        assertEquals("[seek:1, seek:6]", mSeeks.toString());
+    }
+
+    @Test
+    public void request_afterIntervalIsImmediate() {
+        mThrottle.request(1);
+        advance(INTERVAL);
+        mThrottle.request(2);
+        assertEquals("[seek:1, seek:2]", mSeeks.toString());
+        assertNull(mTask);
+    }
+
+    @Test
+    public void request_sameValueIsSkipped() {
+        mThrottle.request(1);
+        advance(10);
+        mThrottle.request(1);
+        advance(INTERVAL);
+        assertEquals("[seek:1]", mSeeks.toString());
+    }
+
+    @Test
+    public void settle_cancelsPendingAndSeeksPrecisely() {
+        mThrottle.request(1);
+        advance(10);
+        mThrottle.request(2);
+        assertNotNull(mTask);
+        mThrottle.settle(3);
+        assertNull(mTask);
+        advance(INTERVAL);
+        assertEquals("[seek:1, settle:3]", mSeeks.toString());
+    }
+
+    @Test
+    public void settle_alwaysSeeks() {
+        mThrottle.request(5);
+        mThrottle.settle(5);
+        assertEquals("[seek:5, settle:5]", mSeeks.toString());
+    }
+
+    @Test
+    public void cancel_dropsPending() {
+        mThrottle.request(1);
+        mThrottle.request(2);
+        mThrottle.cancel();
+        assertNull(mTask);
+        advance(INTERVAL);
+        assertEquals("[seek:1]", mSeeks.toString());
+    }
+
+    @Test
+    public void zeroInterval_seeksEveryChange() {
+        mThrottle.setInterval(0);
+        mThrottle.request(1);
+        mThrottle.request(2);
+        mThrottle.request(3);
+        assertEquals("[seek:1, seek:2, seek:3]", mSeeks.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setInterval_rejectsNegative() {
+        mThrottle.setInterval(-1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * TimePartPager 的单元测试：后台线程同步执行，主线程的任务排队后手动执行
+ */
+public class TimePartPagerTest {
+
+    private static final int PAGE_TIME = 100;
+    private static final int MAX_PAGES = 4;
+
+    private final List<Runnable> mMainTasks = new ArrayList<>();
+    private final List<Integer> mLoads = new ArrayList<>();
+    private final List<String> mEvents = new ArrayList<>();
+    private int mFailingPage = -1;
+    private TimePartPager mPager;
+
+    @Before
+    public void setUp() {
+        mPager = new TimePartPager(new TimePartDataSource() {
+            @Override
+            public void loadTimeParts(int fromTime, int toTime, TimePartStore out) {
+                final int page = fromTime / PAGE_TIME;
+                mLoads.add(page);
+                if (page == mFailingPage) {
+                    throw new IllegalStateException("network error");
+                }
+                out.append(fromTime + 10, fromTime + 20);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mMainTasks.add(command);
+            }
+        }, new TimePartPager.OnPageLoadedListener() {
+            @Override
+            public void onPageLoaded(int fromTime, int toTime) {
+                mEvents.add("loaded:" + fromTime);
+            }
+
+            @Override
+            public void onPageFailed(int fromTime, int toTime, RuntimeException e) {
+                mEvents.add("failed:" + fromTime);
+            }
+        }, PAGE_TIME, 1, MAX_PAGES);
+    }
+
+    private void runMainTasks() {
+        final List<Runnable> tasks = new ArrayList<>(mMainTasks);
+        mMainTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void request_visibleFirstThenPrefetch() {
+        assertTrue(mPager.request(2, 3, 100));
+        assertEquals("[2, 3, 1, 4]", mLoads.toString());
+        assertNull(mPager.getPage(2));
+        runMainTasks();
+        assertEquals(10 + 200, mPager.getPage(2).getStartTime(0));
+        assertNotNull(mPager.getPage(4));
+        assertEquals(4, mEvents.size());
+
+        // 已缓存的页不重复请求
+        mPager.request(2, 3, 100);
+        assertEquals(4, mLoads.size());
+    }
+
+    @Test
+    public void request_clampedToRange() {
+        mPager.request(0, 5, 2);
+        assertEquals("[0, 1, 2]", mLoads.toString());
+        mLoads.clear();
+        mPager.clear();
+        // 可见范围在时间范围之外
+        assertTrue(mPager.request(3, 4, 2));
+        assertTrue(mLoads.isEmpty());
+    }
+
+    @Test
+    public void request_evictsFarthestPage() {
+        mPager.request(1, 2, 100);
+        runMainTasks();
+        assertEquals("[1, 2, 0, 3]", mLoads.toString());
+        mLoads.clear();
+        // 向右移动两页：页0离得最远，被淘汰
+        mPager.request(3, 4, 100);
+        runMainTasks();
+        assertEquals("[4, 5]", mLoads.toString());
+        assertNull(mPager.getPage(0));
+        assertNull(mPager.getPage(1));
+        assertNotNull(mPager.getPage(2));
+        assertNotNull(mPager.getPage(5));
+    }
+
+    @Test
+    public void request_visiblePagesEvictPrefetchedPages() {
+        mPager.request(5, 6, 100);
+        runMainTasks();
+        mLoads.clear();
+        // 可见3页 + 预取2页 > 4：可见的页可淘汰预取的页，预取放不下时放弃
+        assertTrue(mPager.request(10, 12, 100));
+        runMainTasks();
+        assertEquals("[10, 11, 12, 9]", mLoads.toString());
+        for (int page = 10; page <= 12; page++) {
+            assertNotNull(mPager.getPage(page));
+        }
+        // 可见的页放不下
+        assertFalse(mPager.request(20, 24, 100));
+    }
+
+    @Test
+    public void clear_dropsStaleResults() {
+        mPager.request(0, 0, 100);
+        mPager.clear();
+        runMainTasks();
+        assertNull(mPager.getPage(0));
+        assertTrue(mEvents.isEmpty());
+        // 重新请求后正常加载
+        mPager.request(0, 0, 100);
+        runMainTasks();
+        assertNotNull(mPager.getPage(0));
+    }
+
+    @Test
+    public void evictedLoadingPage_resultDropped() {
+        mPager.request(0, 1, 100);
+        // 还未交回时，页0、1被淘汰
+        mPager.request(10, 11, 100);
+        runMainTasks();
+        assertNull(mPager.getPage(0));
+        assertNotNull(mPager.getPage(10));
+        assertFalse(mEvents.contains("loaded:0"));
+    }
+
+    @Test
+    public void loadFailure_resetsPageForRetry() {
+        mFailingPage = 1;
+        mPager.request(1, 1, 100);
+        runMainTasks();
+        assertNull(mPager.getPage(1));
+        assertTrue(mEvents.contains("failed:100"));
+        assertNotNull(mPager.getPage(0));
+
+        mFailingPage = -1;
+        mLoads.clear();
+        mPager.request(1, 1, 100);
+        runMainTasks();
+        assertEquals("[1]", mLoads.toString());
+        assertNotNull(mPager.getPage(1));
+    }
+}
@@ -0,0 +1,133 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TimePartStore 的单元测试，在JVM中运行
+ */
+public class TimePartStoreTest {
+
+    private TimePartStore mStore;
+
+    @Before
+    public void setUp() {
+        mStore = new TimePartStore();
+    }
+
+    private String dump(TimePartStore store) {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < store.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(store.getStartTime(i)).append('-').append(store.getEndTime(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    @Test
+    public void set_sortsAndMergesOverlappingAndAdjacent() {
+        mStore.set(new int[]{50, 0, 10, 30, 100}, new int[]{60, 10, 20, 55, 100}, 5);
+        // 0-10 与 10-20 相接，30-55 与 50-60 重叠
+        assertEquals("[0-20, 30-60, 100-100]", dump(mStore));
+    }
+
+    @Test
+    public void set_containedPartKeepsLongerEnd() {
+        mStore.set(new int[]{0, 5}, new int[]{100, 10}, 2);
+        assertEquals("[0-100]", dump(mStore));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void set_rejectsEndBeforeStart() {
+        mStore.set(new int[]{10}, new int[]{5}, 1);
+    }
+
+    @Test
+    public void append_extendsOrAddsInOrder() {
+        assertTrue(mStore.append(0, 10));
+        // 相接：延长
+        assertTrue(mStore.append(10, 20));
+        // 重叠：延长
+        assertTrue(mStore.append(15, 30));
+        // 被包含：不变
+        assertTrue(mStore.append(20, 25));
+        // 之后：添加
+        assertTrue(mStore.append(40, 50));
+        assertEquals("[0-30, 40-50]", dump(mStore));
+    }
+
+    @Test
+    public void append_outOfOrderResorts() {
+        mStore.append(100, 200);
+        assertFalse(mStore.append(0, 100));
+        assertEquals("[0-200]", dump(mStore));
+        // 起始时间不小于最后一个的起始时间：按顺序处理
+        assertTrue(mStore.append(50, 60));
+        assertEquals("[0-200]", dump(mStore));
+        mStore.append(300, 400);
+        assertFalse(mStore.append(210, 220));
+        assertEquals("[0-200, 210-220, 300-400]", dump(mStore));
+    }
+
+    @Test
+    public void append_growsCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            mStore.append(i * 10, i * 10 + 5);
+        }
+        assertEquals(1000, mStore.size());
+        assertEquals(9990, mStore.getStartTime(999));
+    }
+
+    @Test
+    public void coalesce_mergesSmallGapsAndCachesPerLevel() {
+        mStore.set(new int[]{0, 12, 30, 100}, new int[]{10, 20, 40, 110}, 4);
+        final TimePartStore level = mStore.coalesce(1, 5);
+        assertEquals("[0-20, 30-40, 100-110]", dump(level));
+        assertSame(level, mStore.coalesce(1, 5));
+        assertEquals("[0-40, 100-110]", dump(mStore.coalesce(2, 10)));
+        // 间隔变化时重新合并
+        assertEquals("[0-110]", dump(mStore.coalesce(1, 60)));
+        // 不合并时返回自身
+        assertSame(mStore, mStore.coalesce(0, 0));
+    }
+
+    @Test
+    public void coalesce_updatedIncrementallyOnAppend() {
+        mStore.set(new int[]{0}, new int[]{10}, 1);
+        final TimePartStore level = mStore.coalesce(1, 5);
+        mStore.append(13, 20);
+        mStore.append(30, 40);
+        assertEquals("[0-20, 30-40]", dump(level));
+        assertEquals("[0-10, 13-20, 30-40]", dump(mStore));
+    }
+
+    @Test
+    public void coalesce_clearedOnSet() {
+        mStore.set(new int[]{0, 12}, new int[]{10, 20}, 2);
+        final TimePartStore level = mStore.coalesce(1, 5);
+        mStore.set(new int[]{100}, new int[]{110}, 1);
+        assertNotSame(level, mStore.coalesce(1, 5));
+        assertEquals("[100-110]", dump(mStore.coalesce(1, 5)));
+    }
+
+    @Test
+    public void indexOfFirstEndAtOrAfter_edges() {
+        mStore.set(new int[]{10, 30, 50}, new int[]{20, 40, 60}, 3);
+        assertEquals(0, mStore.indexOfFirstEndAtOrAfter(-1));
+        assertEquals(0, mStore.indexOfFirstEndAtOrAfter(0));
+        // 等于结束时间时包含
+        assertEquals(0, mStore.indexOfFirstEndAtOrAfter(20));
+        assertEquals(1, mStore.indexOfFirstEndAtOrAfter(21));
+        // 位于两个时间块之间
+        assertEquals(1, mStore.indexOfFirstEndAtOrAfter(25));
+        assertEquals(2, mStore.indexOfFirstEndAtOrAfter(60));
+        assertEquals(3, mStore.indexOfFirstEndAtOrAfter(61));
+
+        mStore.clear();
+        assertEquals(0, mStore.indexOfFirstEndAtOrAfter(0));
+    }
+}
@@ -0,0 +1,84 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * TimeZoomLevels 的单元测试，在JVM中运行
+ */
+public class TimeZoomLevelsTest {
+
+    /**
+     * xxhdpi：缩放比例为1时，1min对应12dp = 36px
+     */
+    private static final float ONE_SECOND_GAP = 36f / 60;
+    private static final float MIN_TICK_GAP = 9f;
+    private static final float MIN_LABEL_GAP = 126f;
+
+    private TimeZoomLevels mLevels;
+
+    @Before
+    public void setUp() {
+        mLevels = new TimeZoomLevels(TimeZoomLevels.DEFAULT_UNIT_SECONDS, TimeZoomLevels.DEFAULT_LABEL_SECONDS,
+                MIN_TICK_GAP, MIN_LABEL_GAP, 0.015f * ONE_SECOND_GAP, 6f * ONE_SECOND_GAP);
+    }
+
+    @Test
+    public void levels_labelsNeverOverlapAndTicksBounded() {
+        final double min = Math.log(mLevels.getMinPixelsPerSecond());
+        final double max = Math.log(mLevels.getMaxPixelsPerSecond());
+        for (int i = 0; i <= 10000; i++) {
+            final float pps = (float) Math.exp(min + (max - min) * i / 10000);
+            final int index = mLevels.indexOf(pps);
+            final int unit = mLevels.unitSecondsAt(index);
+            final int label = mLevels.labelSecondsAt(index);
+            assertTrue(label * pps >= MIN_LABEL_GAP * 0.999f);
+            assertTrue(unit * pps >= MIN_TICK_GAP * 0.999f);
+            assertEquals(0, label % unit);
+        }
+    }
+
+    @Test
+    public void levels_orderedFromZoomInToZoomOut() {
+        for (int i = 1; i < mLevels.size(); i++) {
+            assertTrue(mLevels.minPixelsPerSecondAt(i) < mLevels.minPixelsPerSecondAt(i - 1));
+            assertTrue(mLevels.labelSecondsAt(i) >= mLevels.labelSecondsAt(i - 1));
+            assertTrue(mLevels.unitSecondsAt(i) >= mLevels.unitSecondsAt(i - 1)
+                    || mLevels.labelSecondsAt(i) > mLevels.labelSecondsAt(i - 1));
+            // 相邻等级不同
+            assertFalse(mLevels.unitSecondsAt(i) == mLevels.unitSecondsAt(i - 1)
+                    && mLevels.labelSecondsAt(i) == mLevels.labelSecondsAt(i - 1));
+        }
+    }
+
+    @Test
+    public void indexOf_matchesThresholds() {
+        for (int i = 0; i < mLevels.size(); i++) {
+            final float low = mLevels.minPixelsPerSecondAt(i);
+            assertEquals(i, mLevels.indexOf(low));
+            if (i > 0) {
+                assertEquals(i, mLevels.indexOf(Math.nextAfter(mLevels.minPixelsPerSecondAt(i - 1), 0)));
+            }
+        }
+        assertEquals(0, mLevels.indexOf(mLevels.getMaxPixelsPerSecond() * 10));
+        assertEquals(mLevels.size() - 1, mLevels.indexOf(0));
+    }
+
+    @Test
+    public void largeFont_raisesMinimumZoom() {
+        // 文字很宽时，最大的数值间隔（12h）也要放得下
+        final float labelGap = 600f;
+        final TimeZoomLevels levels = new TimeZoomLevels(TimeZoomLevels.DEFAULT_UNIT_SECONDS,
+                TimeZoomLevels.DEFAULT_LABEL_SECONDS, MIN_TICK_GAP, labelGap, 1e-4f, 6f * ONE_SECOND_GAP);
+        assertEquals(labelGap / (12 * 3600), levels.getMinPixelsPerSecond(), 1e-9f);
+        final int last = levels.size() - 1;
+        assertTrue(levels.labelSecondsAt(last) * levels.getMinPixelsPerSecond() >= labelGap * 0.999f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void labelsMustBeWholeMinutes() {
+        new TimeZoomLevels(new int[]{10}, new int[]{90}, MIN_TICK_GAP, MIN_LABEL_GAP, 0.01f, 1f);
+    }
+}